@@ -0,0 +1,304 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ArcConsistency.java
+ *
+ * Contains class:
+ *
+ * 		ArcConsistency:
+ *
+ * 			Purpose: To remove the sections that cannot appear in any
+ * 				valid schedule before the build enumerates them
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayDeque;						//for the sections to check again
+import java.util.ArrayList;							//for the courses of each name
+
+
+/********************************************************
+ * Class ArcConsistency
+ *
+ * @purpose Runs AC-3 over the section conflict graph of a build. A
+ * 		schedule holding a section must also hold every primary course
+ * 		and every course linked to the section's course, so the section
+ * 		needs support in each of those courses: a course with that name
+ * 		with at least numberSelected usable sections that do not
+ * 		conflict with it. Sections without support are removed, and
+ * 		the sections that relied on them are checked again until no
+ * 		more can be removed.
+ *
+ * 		Courses are named by their perceived course, as in
+ * 		Schedule.allPrimaryUsed and Schedule.hasAllLinks, and a section
+ * 		provides its own course's name. Names without exactly one
+ * 		requested course and courses taking no sections are never used
+ * 		to remove a section, so the pass only removes sections the
+ * 		schedule checks would reject anyway.
+********************************************************/
+public class ArcConsistency {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700008L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the pass
+	********************************************************/
+	private final Course[] possible;				//the requested courses
+	private final int[] numberSelected;				//the number of sections of each course
+	private final ConflictMatrix matrix;			//the conflicts between the sections
+	private final int[][] supports;					//the courses of each name each course needs
+	private final int[][] dependents;				//the courses needing each course
+	private final int[] primaryNames;				//the course of each primary name, -1 if not unique
+	private int eliminated;							//the sections removed
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Finds the courses every section of each course needs
+	 *
+	 * @param Course[] possible: the requested courses
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param ArrayList<String> primary: the primary course names
+	 * @param LinkedCourses links: the linked course names
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	********************************************************/
+	public ArcConsistency(Course[] possible, int[] numberSelected, ArrayList<String> primary, LinkedCourses links, ConflictMatrix matrix){
+		this.possible = possible;					//set the courses
+		this.numberSelected = numberSelected;		//set the number of each section
+		this.matrix = matrix;						//set the conflict matrix
+
+		int courses = possible.length;
+		ArrayList<ArrayList<String>> needs = new ArrayList<ArrayList<String>>();
+
+		for(int course = 0; course < courses; course++){
+			ArrayList<String> names = new ArrayList<String>(primary);
+			String name = possible[course].getPerceivedCourse();
+
+			for(CourseList link: links){			//every course linked to this one
+				if(link.contains(name)){
+					for(String other: link){
+						names.add(other);
+					}
+				}
+			}
+
+			needs.add(names);
+		}
+
+		supports = new int[courses][];
+		ArrayList<ArrayList<Integer>> needing = new ArrayList<ArrayList<Integer>>();
+
+		for(int course = 0; course < courses; course++){
+			needing.add(new ArrayList<Integer>());
+		}
+
+		for(int course = 0; course < courses; course++){
+			ArrayList<Integer> found = new ArrayList<Integer>();
+
+			for(String name: needs.get(course)){
+				int named = findCourse(name);
+
+				if(named >= 0 && named != course && numberSelected[named] > 0 && !found.contains(named)){
+					found.add(named);
+					needing.get(named).add(course);
+				}
+			}
+			supports[course] = toArray(found);
+		}
+
+		dependents = new int[courses][];
+		for(int course = 0; course < courses; course++){
+			dependents[course] = toArray(needing.get(course));
+		}
+
+		primaryNames = new int[primary.size()];
+		for(int pos = 0; pos < primaryNames.length; pos++){
+			primaryNames[pos] = findCourse(primary.get(pos));
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the only course with the name. A name shared by
+	 * 		several courses could be provided by any of them, so it is
+	 * 		not used to remove sections
+	 *
+	 * @param String name: the perceived course name
+	 *
+	 * @return int: the index of the course, or -1 if none or several
+	********************************************************/
+	private int findCourse(String name){
+		int found = -1;
+
+		for(int course = 0; course < possible.length; course++){
+			if(possible[course].getPerceivedCourse().equals(name)){
+				if(found >= 0){
+					return -1;						//provided by several courses
+				}
+				found = course;
+			}
+		}
+		return found;
+	}
+
+
+	/********************************************************
+	 * @purpose Removes the usable sections without support in every
+	 * 		course they need, and returns if a schedule may still exist
+	 *
+	 * @param boolean[][] usable: the usable sections, updated in place
+	 * @param int useMin: the minimum number of sections in a schedule
+	 *
+	 * @return boolean: false if no valid schedule can exist
+	********************************************************/
+	public boolean reduce(boolean[][] usable, int useMin){
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		boolean[] queued = new boolean[possible.length];
+
+		for(int course = 0; course < possible.length; course++){
+			if(supports[course].length > 0){		//only sections that need other courses
+				queue.add(course);
+				queued[course] = true;
+			}
+		}
+
+		while(!queue.isEmpty()){
+			int course = queue.poll();
+			queued[course] = false;
+			boolean changed = false;
+
+			for(int section = 0; section < usable[course].length; section++){
+				if(usable[course][section] && !isSupported(course, matrix.index(course, section), usable)){
+					usable[course][section] = false;//no valid schedule holds it
+					eliminated++;
+					changed = true;
+				}
+			}
+
+			if(changed){							//check the courses that needed it again
+				for(int other: dependents[course]){
+					if(!queued[other]){
+						queue.add(other);
+						queued[other] = true;
+					}
+				}
+			}
+		}
+
+		for(int named: primaryNames){				//every primary course must still fit
+			if(named >= 0 && numberSelected[named] > 0 && countUsable(named, usable) < numberSelected[named]){
+				return false;
+			}
+		}
+
+		int most = 0;								//the largest schedule left
+		for(int course = 0; course < possible.length; course++){
+			if(countUsable(course, usable) >= numberSelected[course]){
+				most += numberSelected[course];
+			}
+		}
+		return most >= useMin;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if every course the section needs has enough
+	 * 		usable sections that do not conflict with it
+	 *
+	 * @param int course: the index of the section's course
+	 * @param int index: the matrix index of the section
+	 * @param boolean[][] usable: the usable sections
+	 *
+	 * @return boolean: if the section is supported
+	********************************************************/
+	private boolean isSupported(int course, int index, boolean[][] usable){
+		for(int other: supports[course]){
+			int compatible = 0;
+
+			for(int section = 0; section < usable[other].length && compatible < numberSelected[other]; section++){
+				if(usable[other][section] && !matrix.conflicts(index, matrix.index(other, section))){
+					compatible++;
+				}
+			}
+
+			if(compatible < numberSelected[other]){
+				return false;						//the other course cannot be filled
+			}
+		}
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of usable sections of a course
+	 *
+	 * @param int course: the index of the course
+	 * @param boolean[][] usable: the usable sections
+	 *
+	 * @return int: the number of usable sections
+	********************************************************/
+	private static int countUsable(int course, boolean[][] usable){
+		int count = 0;
+
+		for(boolean section: usable[course]){
+			if(section){
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of sections removed
+	 *
+	 * @return int: the sections removed by reduce
+	********************************************************/
+	public int getEliminated(){
+		return eliminated;
+	}
+
+
+	/********************************************************
+	 * @purpose Copies the list to an int array
+	 *
+	 * @param ArrayList<Integer> list: the values
+	 *
+	 * @return int[]: the values
+	********************************************************/
+	private static int[] toArray(ArrayList<Integer> list){
+		int[] values = new int[list.size()];
+
+		for(int pos = 0; pos < values.length; pos++){
+			values[pos] = list.get(pos);
+		}
+		return values;
+	}
+}
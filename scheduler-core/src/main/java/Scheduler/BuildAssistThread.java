@@ -34,7 +34,6 @@ package Scheduler;									//declare as member of scheduler package
  * The following imports are necessary for this class
 ********************************************************/
 import javax.swing.SwingWorker;						//subclasses by this class
-import java.util.ArrayList;							//use to store list of helper threads
 import java.util.HashMap;
 import java.util.List;
 import java.util.Vector;
@@ -59,7 +58,10 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 	/********************************************************
 	 * The following are private fields for the class
 	********************************************************/
-	private ArrayList<int[][]> greyCodes;			//the list of grey codes for this thread to test
+	private long first;								//the first grey code for this thread to test
+	private long last;								//the grey code after the last one to test
+	private int[][][] tables;						//the usable choices of each course, shared
+	private boolean[][] sectionsAllowed;			//the sections allowed for each course
 	private ScheduleVector result;					//the possible schedules found
 	private String term;							//the term for the schedules
 	private Course[] possible;						//the courses to use
@@ -69,11 +71,33 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 	private ThreadSynch sync;						//the thread sync object
 	private int[] numberSelected;					//the number of each section selected
 	private boolean reportingEnabled;				//if conflict reporting is enabled
+	private ConflictMatrix matrix;					//the conflicts between the possible sections
+	private ScheduleHeap best;						//the best schedules, null to keep every schedule
+	private CourseConstraints constraints;			//the primary, link and count constraints, shared
 
 	
 	@Override
 	protected Void doInBackground() throws Exception {
-		for(int[][]comb: greyCodes){	
+		int[] added = new int[matrix.size()];		//matrix indices of the sections in the schedule
+		int[] perCourse = new int[possible.length];	//scratch space for the constraint checks
+		int[] perName = new int[constraints.getNames()];
+		int[] perGroup = new int[constraints.getNames()];
+		ScheduleBatch batch = new ScheduleBatch(sync);//streams the valid schedules to the gui
+		RatingContext rating = Main.prefs.getRatingContext();//rate every schedule the same way
+		
+		int[] radix = new int[tables.length];		//the number of combinations of each course
+		for(int col = 0; col < radix.length; col++){
+			radix[col] = tables[col].length;
+		}
+		
+		int[] position = new int[tables.length];	//the combination of each course in the grey code
+		int[][] comb = new int[tables.length][];	//the grey code, rows shared with the tables
+		CombinationGenerator.unrankProduct(first, radix, position);
+		
+		for(long code = first; code < last; code++, CombinationGenerator.advanceProduct(position, radix)){
+			for(int col = 0; col < comb.length; col++){
+				comb[col] = tables[col][position[col]];
+			}
 			
 			if(sync.isCanceled()){					//check if the operation is cancelled
 				sync.allowUpdate = false;			//disallow updating the monitor
@@ -82,15 +106,21 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 			}
 			
 			Schedule item = new Schedule(term);
-			Vector<Section> notUsed = new Vector<Section>();
+			Vector<Section> notUsed = reportingEnabled ? new Vector<Section>() : null;//only needed for the reports
+			int count = 0;							//the number of sections added
 			
 			for(int course = 0; course < possible.length; course++){
 				for(int toAdd: comb[course]){
 					try{
 						if(comb[course][comb[course].length-1] != possible[course].getNumOfSections()){
-							Section add = possible[course].getSection(toAdd); 
+							int index = matrix.index(course, toAdd);
+							Section add = matrix.getSection(index);//shared, not cloned
 							
-							if(!item.add(add, allowClosed)){
+							if(!matrix.conflictsWithAny(index, added, count)){//tables only hold usable sections
+								item.append(add);			//checked against the matrix
+								added[count++] = index;
+							}
+							else if(notUsed != null){
 								notUsed.add(add);
 							}
 						}
@@ -99,9 +129,11 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 				}
 			}
 			
-			if (item.numberSections() >= useMin && item.allPrimaryUsed(sync.getPrimary()) && item.hasAllLinks(sync.getOwner().dependancy) && item.allFitTypes(sync.getType()) && item.hasAllSections(numberSelected, possible)){//verify that the minimum number of courses is satisfied
-				item.reRate();					//rate the schedule before adding it
-				result.addIfNew(item);			//if meets min requirement and not been added, add
+			if (constraints.accepts(added, count, perCourse, perName, perGroup)){//verify the minimum, primary, link and section counts
+				item.reRate(rating);			//rate the schedule before adding it
+				if(best != null ? best.offer(item) : result.addIfNew(item)){//keep the best, or every new schedule
+					batch.add(item);			//show it before the build is done
+				}
 			}									//to list of valid results
 			else if(reportingEnabled){
 				
@@ -171,7 +203,7 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 						for(int greyLoc = 0; greyLoc < comb[combLoc].length; greyLoc++){
 							
 							try{
-								Section check = possible[combLoc].getSection(comb[combLoc][greyLoc]);
+								Section check = possible[combLoc].getSectionRef(comb[combLoc][greyLoc]);
 								
 								if(!check.fitsType(sync.getType())){
 									valid = false;
@@ -190,7 +222,7 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 						for(int combLoc = 0; combLoc < comb.length; combLoc++){
 							for(int greyLoc = 0; greyLoc < comb[combLoc].length; greyLoc++){
 								try{
-									combStr += possible[combLoc].getSection(comb[combLoc][greyLoc]) + " ";
+									combStr += possible[combLoc].getSectionRef(comb[combLoc][greyLoc]) + " ";
 								}
 								catch (Exception ex){}
 							}
@@ -234,7 +266,7 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 							if(contained != 0 && contained != numberSelected[loc]){
 								
 								for(int index: comb[loc]){
-									Section missing = possible[loc].getSection(index);
+									Section missing = possible[loc].getSectionRef(index);
 									
 									if(notUsed.contains(missing)){
 										conflict.addNumberError(missing, item.findConflictingSection(missing), numberSelected[loc]);
@@ -269,7 +301,7 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 											
 											int loc = combPos.get(other).intValue();
 											for(int secIndex: comb[loc]){
-												Section missing = possible[loc].getSection(secIndex);
+												Section missing = possible[loc].getSectionRef(secIndex);
 												
 												if(!item.contains(missing)){
 													conf.add(new Section[]{missing, item.findConflictingSection(missing)});
@@ -311,6 +343,7 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 			publish((Void)null);
 		}
 		
+		batch.flush();							//publish the rest of this helper's schedules
 		return null;
 	}
 	
@@ -326,14 +359,76 @@ public class BuildAssistThread extends SwingWorker<Void,Void> {
 		sync.updateProgressValue();
 	}
 
-	public ArrayList<int[][]> getGreyCodes() {
-		return greyCodes;
+	/********************************************************
+	 * @purpose Sets the grey codes for this thread to test, as a range
+	 * 		of indices into the product of the course tables
+	 * 
+	 * @param long first: the first grey code
+	 * @param long last: the grey code after the last one
+	********************************************************/
+	public void setRange(long first, long last) {
+		this.first = first;
+		this.last = last;
+	}
+
+
+
+	public int[][][] getTables() {
+		return tables;
+	}
+
+
+
+	public void setTables(int[][][] tables) {
+		this.tables = tables;
+	}
+
+
+
+	public CourseConstraints getConstraints() {
+		return constraints;
+	}
+
+
+
+	public void setConstraints(CourseConstraints constraints) {
+		this.constraints = constraints;
+	}
+
+
+
+	public boolean[][] getSectionsAllowed() {
+		return sectionsAllowed;
+	}
+
+
+
+	public void setSectionsAllowed(boolean[][] sectionsAllowed) {
+		this.sectionsAllowed = sectionsAllowed;
+	}
+
+
+
+	public ConflictMatrix getMatrix() {
+		return matrix;
+	}
+
+
+
+	public void setMatrix(ConflictMatrix matrix) {
+		this.matrix = matrix;
+	}
+
+
+
+	public ScheduleHeap getBest() {
+		return best;
 	}
 
 
 
-	public void setGreyCodes(ArrayList<int[][]> greyCodes) {
-		this.greyCodes = greyCodes;
+	public void setBest(ScheduleHeap best) {
+		this.best = best;
 	}
 
 
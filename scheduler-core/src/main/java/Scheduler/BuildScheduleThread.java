@@ -36,6 +36,7 @@ package Scheduler;							//declare as member of scheduler package
 ********************************************************/
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.TreeMap;
 
@@ -53,7 +54,7 @@ import javax.swing.JOptionPane;				//import the option pane
  * 
  * 		@see SwingWorker
 ********************************************************/
-public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
+public class BuildScheduleThread extends SwingWorker<Schedule[], Schedule[]>{
 	
 	
 	/********************************************************
@@ -76,6 +77,13 @@ public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
 	private TreeMap<String, boolean[]> allowedSections;//the sections that are allowed
 	private TreeMap<String, Integer> numberSelections;//the number of each section
 	private boolean reportingEnabled;		//if conflict reporting is enabled
+	private ScheduleStream stream;			//the schedules shown while building
+	private boolean finished;				//if done has replaced the streamed schedules
+	private boolean streaming;				//if the list shows the streamed schedules
+	private DefaultListModel previous;		//the schedules listed before streaming, restored on cancel
+	private int previousIndex;				//the schedule selected before streaming
+	private long previousTotal;				//the count shown before streaming
+	private double previousCoverage;		//the coverage shown before streaming
 	
 	
 	/********************************************************
@@ -96,6 +104,11 @@ public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
 		sync.setPrimary(primary);
 		sync.setType(type);
 		
+		if(!reportingEnabled){				//conflicts are only listed once the build is done
+			stream = new ScheduleStream(Main.prefs.getResultLimit());
+			sync.setPublisher(this);		//show schedules as they are found
+		}
+		
 		ProgressMonitor progress = new ProgressMonitor(Main.master, "Building Schedules: ",
 				"Calculating Combinations and Assigning Schedule Tests to Threads",0, 2);	//set up progress monitor
 				
@@ -109,9 +122,99 @@ public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
 			numberSections[temp] = numberSelections.get(classes[temp]).intValue();
 		}
 			
+		if(Main.prefs.isSearchEnabled() && !reportingEnabled && Main.prefs.isSampleEnabled()){//draw instead of building them all
+			int wanted = (Main.prefs.getResultLimit() > 0) ? Main.prefs.getResultLimit() : Database.sampleSize;
+			
+			return owner.local.sampleSchedules(classes, allowClosed, useMin, sync, allowSection, numberSections, wanted, Main.prefs.isSampleDiverse());
+		}
+		
+		if(Main.prefs.isSearchEnabled() && !reportingEnabled){//conflicts are only reported by the enumeration
+			return owner.local.searchSchedules(classes, allowClosed, useMin, sync, allowSection, numberSections, Main.prefs.getTimeLimit());//return the schedules
+		}
+		
 		return owner.local.makeSchedulesOpt(classes, primary, allowClosed, useMin, sync, allowSection, numberSections, reportingEnabled);//return the schedules
 	}
 	
+	/********************************************************
+	 * @purpose Publishes schedules found by the build so they can be
+	 * 		shown before it finishes. Called from the worker threads;
+	 * 		SwingWorker coalesces the batches into a single process
+	 * 		call on the event dispatch thread
+	 * 
+	 * @param Schedule[] batch: the valid, rated schedules
+	********************************************************/
+	protected void publishSchedules(Schedule[] batch){
+		publish(batch);							//queue the batch for the gui
+	}
+	
+	
+	/********************************************************
+	 * @purpose Merges the published schedules into the schedule list
+	 * 		in rating order and shows the number counted. The first
+	 * 		batch, or the empty batch published with the count, replaces
+	 * 		the list
+	 * 
+	 * @see Override, SwingWorker
+	********************************************************/
+	@Override
+	protected void process(List<Schedule[]> batches){
+		if(finished || stream == null || sync.isCanceled()){
+			return;								//the final list is already shown
+		}
+		
+		if(!streaming){							//the first batch or count replaces the list
+			streaming = true;
+			previous = owner.schedulesModel;	//kept in case the build is cancelled
+			previousIndex = owner.schedules.getSelectedIndex();
+			previousTotal = owner.scheduleTotal;
+			previousCoverage = owner.scheduleCoverage;
+			owner.schedulesModel = new DefaultListModel();//make new list model
+			owner.schedules.setModel(owner.schedulesModel);//the list follows the model
+		}
+		
+		if(stream.merge(batches)){				//only an empty batch with the count otherwise
+			insertShown();
+		}
+		owner.scheduleTotal = sync.getStatistics().getCounted();
+		owner.scheduleCoverage = sync.getStatistics().getCoverage();
+		owner.updateScheduleCount();
+	}
+	
+	
+	/********************************************************
+	 * @purpose Inserts the schedules new to the stream into the list
+	 * 		and drops the ones pushed off its end, keeping the user's
+	 * 		selection
+	********************************************************/
+	private void insertShown(){
+		ArrayList<Schedule> shown = stream.getShown();
+		Object selected = owner.schedules.getSelectedValue();
+		int index = 0;
+		
+		for(Schedule item: shown){				//the shown order keeps the listed schedules in order
+			if(index < owner.schedulesModel.getSize() && owner.schedulesModel.getElementAt(index) == item){
+				index++;						//already listed
+			}
+			else{
+				owner.schedulesModel.add(index++, item);//insert the new schedule
+			}
+		}
+		
+		if(index < owner.schedulesModel.getSize()){//pushed off the end of the list
+			owner.schedulesModel.removeRange(index, owner.schedulesModel.getSize() - 1);
+		}
+		
+		int keep = (selected == null) ? -1 : owner.schedulesModel.indexOf(selected);
+		
+		if(keep < 0){							//select the best until the user picks one
+			owner.schedules.setSelectedIndex(0);
+		}
+		else if(owner.schedules.getSelectedIndex() != keep || owner.schedules.getSelectedIndices().length != 1){
+			owner.schedules.setSelectedIndex(keep);//an insert at the selection moved it
+		}
+	}
+	
+	
 	/********************************************************
 	 * @purpose To restore everything when the task is done
 	 * 
@@ -119,8 +222,16 @@ public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
 	********************************************************/
 	@Override
 	protected void done(){
+		finished = true;								//ignore batches still queued
+		
 		try{											//required by get()			
 			if(sync.isCanceled()){
+				if(streaming){							//show the schedules from before the build again
+					owner.schedulesModel = previous;
+					owner.schedules.setListData(previous.toArray());
+					owner.schedules.setSelectedIndex(previousIndex);
+				}
+				
 				JOptionPane.showMessageDialog(Main.master, "Schedule build cancelled by user",
 					"Build Cancelled", JOptionPane.ERROR_MESSAGE);
 			}
@@ -178,6 +289,16 @@ public class BuildScheduleThread extends SwingWorker<Schedule[], Void>{
 			owner.removeCourse.doClick();
 		}										//do nothing
 		
+		if(sync.isCanceled()){						//the count of the incomplete build is not shown
+			if(streaming){							//the count of the schedules shown again
+				owner.scheduleTotal = previousTotal;
+				owner.scheduleCoverage = previousCoverage;
+			}
+		}
+		else{
+			owner.scheduleTotal = sync.getStatistics().getCounted();
+			owner.scheduleCoverage = sync.getStatistics().getCoverage();
+		}
 		owner.updateScheduleCount();
 		owner.setEnabled(true);					//reenable the owning gui
 		owner.conditionalDisable();
@@ -0,0 +1,307 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: BuildStatistics.java
+ *
+ * Contains class:
+ *
+ * 		BuildStatistics:
+ *
+ * 			Purpose: To collect the figures of a single schedule build
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * Class BuildStatistics
+ *
+ * @purpose Holds the figures of one schedule build so that they can be
+ * 		logged once the build finishes. Each build gets its own object
+ * 		through its ThreadSynch.
+********************************************************/
+public class BuildStatistics {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700001L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the statistics
+	********************************************************/
+	private int matrixSections;						//the sections in the conflict matrix
+	private long matrixBytes;						//the memory used by the matrix rows
+	private long matrixMillis;						//the time taken to fill the matrix
+	private long pruned;							//the branches cut by the rating bound
+	private int groupedSections;					//the usable sections grouped by time
+	private int groups;								//the groups searched in their place
+	private int eliminated;							//the sections removed by arc consistency
+	private int restored;							//the nogoods of earlier builds installed
+	private long learned;							//the nogoods learned by the search
+	private long backjumps;							//the jumps past the latest course
+	private long counted;							//the schedules counted before a limited search
+	private double covered;							//the share of the search tree decided
+	private boolean expired;						//if the search stopped at its deadline
+
+
+	/********************************************************
+	 * @purpose Records the conflict matrix of the build
+	 *
+	 * @param ConflictMatrix matrix: the matrix that was built
+	 * @param long millis: the time taken to fill it
+	********************************************************/
+	public synchronized void setMatrix(ConflictMatrix matrix, long millis){
+		this.matrixSections = matrix.size();		//set the number of sections
+		this.matrixBytes = matrix.getBytes();		//set the size
+		this.matrixMillis = millis;					//set the build time
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of sections in the conflict matrix
+	 *
+	 * @return int: the number of matrix rows
+	********************************************************/
+	public synchronized int getMatrixSections(){
+		return matrixSections;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the memory used by the conflict matrix rows
+	 *
+	 * @return long: the size in bytes
+	********************************************************/
+	public synchronized long getMatrixBytes(){
+		return matrixBytes;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the time taken to fill the conflict matrix
+	 *
+	 * @return long: the build time in milliseconds
+	********************************************************/
+	public synchronized long getMatrixMillis(){
+		return matrixMillis;
+	}
+
+
+	/********************************************************
+	 * @purpose Records how many sections were grouped by meeting time
+	 *
+	 * @param SectionGroups groups: the groups of the build
+	********************************************************/
+	public synchronized void setGroups(SectionGroups groups){
+		this.groupedSections = groups.getSections();//set the number of sections
+		this.groups = groups.getGroups();			//set the number of groups
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of groups searched in place of the
+	 * 		usable sections
+	 *
+	 * @return int: the number of groups
+	********************************************************/
+	public synchronized int getGroups(){
+		return groups;
+	}
+
+
+	/********************************************************
+	 * @purpose Records the sections removed before the build because
+	 * 		no valid schedule can hold them
+	 *
+	 * @param int sections: the number of sections removed
+	********************************************************/
+	public synchronized void setEliminated(int sections){
+		this.eliminated = sections;					//set the number removed
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the sections removed before the build
+	 *
+	 * @return int: the number of sections removed
+	********************************************************/
+	public synchronized int getEliminated(){
+		return eliminated;
+	}
+
+
+	/********************************************************
+	 * @purpose Adds branches cut because they could not beat the best
+	 * 		schedules kept
+	 *
+	 * @param long branches: the number of branches cut
+	********************************************************/
+	public synchronized void addPruned(long branches){
+		this.pruned += branches;					//add the branches
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the branches cut by the rating bound
+	 *
+	 * @return long: the number of branches cut
+	********************************************************/
+	public synchronized long getPruned(){
+		return pruned;
+	}
+
+
+	/********************************************************
+	 * @purpose Records the nogoods of earlier builds installed before
+	 * 		the search
+	 *
+	 * @param int nogoods: the number of nogoods installed
+	********************************************************/
+	public synchronized void setRestored(int nogoods){
+		this.restored = nogoods;					//set the number installed
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the nogoods of earlier builds installed
+	 *
+	 * @return int: the number of nogoods installed
+	********************************************************/
+	public synchronized int getRestored(){
+		return restored;
+	}
+
+
+	/********************************************************
+	 * @purpose Adds the nogoods learned and the backjumps taken by a
+	 * 		branch of the search
+	 *
+	 * @param long nogoods: the number of nogoods learned
+	 * @param long jumps: the number of backjumps taken
+	********************************************************/
+	public synchronized void addLearned(long nogoods, long jumps){
+		this.learned += nogoods;					//add the nogoods
+		this.backjumps += jumps;					//add the jumps
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the nogoods learned by the search
+	 *
+	 * @return long: the number of nogoods learned
+	********************************************************/
+	public synchronized long getLearned(){
+		return learned;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the backjumps taken by the search
+	 *
+	 * @return long: the number of backjumps
+	********************************************************/
+	public synchronized long getBackjumps(){
+		return backjumps;
+	}
+
+
+	/********************************************************
+	 * @purpose Records the number of schedules the build would find
+	 * 		without a result limit
+	 *
+	 * @param long schedules: the number counted, -1 if cancelled
+	********************************************************/
+	public synchronized void setCounted(long schedules){
+		this.counted = schedules;					//set the number counted
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of schedules the build would find
+	 * 		without a result limit
+	 *
+	 * @return long: the number counted, 0 if not counted
+	********************************************************/
+	public synchronized long getCounted(){
+		return counted;
+	}
+
+
+	/********************************************************
+	 * @purpose Adds the share of the search tree a branch of the
+	 * 		search decided, searched or ruled out
+	 *
+	 * @param double share: the share decided, out of 1
+	********************************************************/
+	public synchronized void addCovered(double share){
+		this.covered += share;						//add the share
+	}
+
+
+	/********************************************************
+	 * @purpose Records that the search stopped at its deadline with
+	 * 		the schedules found so far
+	********************************************************/
+	public synchronized void setExpired(){
+		this.expired = true;						//set stopped early
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the search stopped at its deadline
+	 *
+	 * @return boolean: if the schedules are the best found so far
+	********************************************************/
+	public synchronized boolean isExpired(){
+		return expired;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the share of the search tree decided before the
+	 * 		build finished. The share of a choice is split evenly among
+	 * 		its options, so this is an estimate of the work done.
+	 *
+	 * @return double: the share decided, 1 unless stopped at the deadline
+	********************************************************/
+	public synchronized double getCoverage(){
+		return expired ? Math.min(1, covered) : 1;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the statistics as a single log line
+	 *
+	 * @return String: the statistics
+	********************************************************/
+	@Override
+	public synchronized String toString(){
+		return "conflict matrix: " + matrixSections + " sections, " + matrixBytes + " bytes, " + matrixMillis + " ms" +
+			(counted > 0 ? ", counted: " + counted + " schedules" : "") +
+			(expired ? ", stopped at the deadline with " + (int)(100 * Math.min(1, covered)) + "% searched" : "") +
+			(eliminated > 0 ? ", eliminated: " + eliminated + " sections" : "") +
+			(groups < groupedSections ? ", " + groupedSections + " sections in " + groups + " time groups" : "") +
+			(pruned > 0 ? ", pruned by rating: " + pruned + " branches" : "") +
+			(learned + restored > 0 ? ", nogoods: " + learned + " learned, " + restored + " restored, " + backjumps + " backjumps" : "");
+	}
+}
@@ -0,0 +1,221 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: CandidateSets.java
+ *
+ * Contains class:
+ *
+ * 		CandidateSets:
+ *
+ * 			Purpose: To find the sections of a course compatible with
+ * 				a partial schedule a word of sections at a time
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * Class CandidateSets
+ *
+ * @purpose Holds the usable sections and the searched sections (the
+ * 		leaders of their groups) as bitmaps over the conflict matrix
+ * 		indices. The sections of a course are consecutive in the matrix,
+ * 		and the search keeps the sections conflicting with the branch
+ * 		as the OR of their matrix rows, so the compatible sections of
+ * 		the next course are one ANDNOT per word of the course, read a
+ * 		set bit at a time instead of testing every section.
+ *
+ * 		The matrix columns are used rather than 5 minute WeekMask
+ * 		slots, since a shared slot is not always a conflict.
+********************************************************/
+public class CandidateSets {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700012L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the sets
+	********************************************************/
+	private final long[] usableBits;				//the usable sections
+	private final long[] searchedBits;				//the usable sections leading their group
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates the bitmaps of the usable and searched sections
+	 *
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param SectionGroups groups: the groups of the usable sections
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	********************************************************/
+	public CandidateSets(boolean[][] usable, SectionGroups groups, ConflictMatrix matrix){
+		usableBits = new long[matrix.getWords()];
+		searchedBits = new long[matrix.getWords()];
+
+		for(int course = 0; course < usable.length; course++){
+			for(int section = 0; section < usable[course].length; section++){
+				if(usable[course][section]){
+					int index = matrix.index(course, section);
+					usableBits[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+
+					if(groups.isLeader(index)){
+						searchedBits[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+					}
+				}
+			}
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the first searched section at or after from and
+	 * 		before to that is not blocked
+	 *
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to return
+	 * @param int to: the matrix index past the last to return
+	 *
+	 * @return int: the matrix index of the section, or -1 if none
+	********************************************************/
+	public int next(long[] blocked, int from, int to){
+		if(from >= to){
+			return -1;
+		}
+
+		int word = from / Long.SIZE;
+		long bits = searchedBits[word] & ~blocked[word] & (-1L << (from % Long.SIZE));
+
+		while(bits == 0){							//skip words without a candidate
+			if(++word * Long.SIZE >= to){
+				return -1;
+			}
+			bits = searchedBits[word] & ~blocked[word];
+		}
+
+		int found = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+		return (found < to) ? found : -1;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the searched sections from from on that are
+	 * 		blocked, the only part of the blocked sections the choices
+	 * 		of the later courses depend on
+	 *
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to keep
+	 *
+	 * @return long[]: the blocked sections, from the word holding from
+	********************************************************/
+	public long[] blockedFrom(long[] blocked, int from){
+		int low = from / Long.SIZE;
+		long[] kept = new long[searchedBits.length - low];
+
+		for(int word = 0; word < kept.length; word++){
+			kept[word] = searchedBits[low + word] & blocked[low + word];
+		}
+
+		if(kept.length > 0){						//drop the sections before from
+			kept[0] &= -1L << (from % Long.SIZE);
+		}
+		return kept;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if at least needed usable sections from from to
+	 * 		before to are not blocked
+	 *
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to count
+	 * @param int to: the matrix index past the last to count
+	 * @param int needed: the number of sections needed
+	 *
+	 * @return boolean: if enough sections are left
+	********************************************************/
+	public boolean hasAtLeast(long[] blocked, int from, int to, int needed){
+		return count(usableBits, blocked, from, to, needed) >= needed;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of usable sections from from to
+	 * 		before to that are not blocked
+	 *
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to count
+	 * @param int to: the matrix index past the last to count
+	 *
+	 * @return int: the number of sections left
+	********************************************************/
+	public int countFree(long[] blocked, int from, int to){
+		return count(usableBits, blocked, from, to, Integer.MAX_VALUE);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of searched sections from from to
+	 * 		before to that are not blocked, the choices next returns
+	 *
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to count
+	 * @param int to: the matrix index past the last to count
+	 *
+	 * @return int: the number of choices left
+	********************************************************/
+	public int countSearched(long[] blocked, int from, int to){
+		return count(searchedBits, blocked, from, to, Integer.MAX_VALUE);
+	}
+
+
+	/********************************************************
+	 * @purpose Counts the sections of a bitmap from from to before to
+	 * 		that are not blocked, stopping once enough are found
+	 *
+	 * @param long[] sections: the usable or the searched sections
+	 * @param long[] blocked: the sections conflicting with the branch
+	 * @param int from: the first matrix index to count
+	 * @param int to: the matrix index past the last to count
+	 * @param int enough: the count to stop at
+	 *
+	 * @return int: the sections left, at least enough if stopped
+	********************************************************/
+	private int count(long[] sections, long[] blocked, int from, int to, int enough){
+		int left = 0;
+
+		for(int word = from / Long.SIZE; word * Long.SIZE < to && left < enough; word++){
+			long bits = sections[word] & ~blocked[word];
+
+			if(word == from / Long.SIZE){			//drop the sections before from
+				bits &= -1L << (from % Long.SIZE);
+			}
+			if((word + 1) * Long.SIZE > to){		//and those from to on
+				bits &= (1L << (to % Long.SIZE)) - 1;
+			}
+			left += Long.bitCount(bits);
+		}
+		return left;
+	}
+}
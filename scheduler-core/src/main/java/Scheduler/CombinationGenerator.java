@@ -1,114 +1,300 @@
-/*
- * http://www.merriampark.com/comb.htm
- * @author Michael Gilleland
- */
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
 
+/********************************************************
+ * Course Scheduler
+ * File: CombinationGenerator.java
+ *
+ * Contains class:
+ *
+ * 		CombinationGenerator:
+ *
+ * 			Purpose: To generate the r element combinations of the
+ * 				integers 0 to n - 1 in lexicographic order
+ *
+ * Based on the generator by Michael Gilleland
+ * 		(http://www.merriampark.com/comb.htm), algorithm from Rosen p. 286
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
 
-package Scheduler;
-
-import java.math.BigInteger;
 
+/********************************************************
+ * Class CombinationGenerator
+ *
+ * @purpose Generates combinations in lexicographic order. The counts are
+ * 		kept in longs, saturating at Long.MAX_VALUE, so generating a
+ * 		combination does not allocate. Any combination can also be
+ * 		found directly by its rank, so a range of combinations can be
+ * 		handed to a worker without generating the ones before it.
+ *
+ * 		The schedule build uses the table of every combination of each
+ * 		course, which is small, and walks the product of the tables as
+ * 		a mixed radix counter.
+********************************************************/
 public class CombinationGenerator {
 
-	protected static final long versionID = 2008102400001L;	//object version
-
-  private int[] a;
-  private int n;
-  private int r;
-  private BigInteger numLeft;
-  private BigInteger total;
-
-  //------------
-  // Constructor
-  //------------
-
-  public CombinationGenerator (int n, int r) {
-    if (r > n) {
-      throw new IllegalArgumentException ();
-    }
-    if (n < 1) {
-      throw new IllegalArgumentException ();
-    }
-    this.n = n;
-    this.r = r;
-    a = new int[r];
-    BigInteger nFact = getFactorial (n);
-    BigInteger rFact = getFactorial (r);
-    BigInteger nminusrFact = getFactorial (n - r);
-    total = nFact.divide (rFact.multiply (nminusrFact));
-    reset ();
-  }
-
-  //------
-  // Reset
-  //------
-
-  public void reset () {
-    for (int i = 0; i < a.length; i++) {
-      a[i] = i;
-    }
-    numLeft = new BigInteger (total.toString ());
-  }
-
-  //------------------------------------------------
-  // Return number of combinations not yet generated
-  //------------------------------------------------
-
-  public BigInteger getNumLeft () {
-    return numLeft;
-  }
-
-  //-----------------------------
-  // Are there more combinations?
-  //-----------------------------
-
-  public boolean hasMore () {
-    return numLeft.compareTo (BigInteger.ZERO) == 1;
-  }
-
-  //------------------------------------
-  // Return total number of combinations
-  //------------------------------------
-
-  public BigInteger getTotal () {
-    return total;
-  }
-
-  //------------------
-  // Compute factorial
-  //------------------
-
-  static BigInteger getFactorial (int n) {
-    BigInteger fact = BigInteger.ONE;
-    for (int i = n; i > 1; i--) {
-      fact = fact.multiply (new BigInteger (Integer.toString (i)));
-    }
-    return fact;
-  }
-
-  //--------------------------------------------------------
-  // Generate next combination (algorithm from Rosen p. 286)
-  //--------------------------------------------------------
-
-  public int[] getNext () {
-
-    if (numLeft.equals (total)) {
-      numLeft = numLeft.subtract (BigInteger.ONE);
-      return a;
-    }
-
-    int i = r - 1;
-    while (a[i] == n - r + i) {
-      i--;
-    }
-    a[i] = a[i] + 1;
-    for (int j = i + 1; j < r; j++) {
-      a[j] = a[i] + j - i;
-    }
-
-    numLeft = numLeft.subtract (BigInteger.ONE);
-    return a;
-
-  }
-}
 
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected static final long versionID = 2026101700005L;	//object version
+
+
+	/********************************************************
+	 * The following are private fields of the generator
+	********************************************************/
+	private int[] a;								//the current combination
+	private int n;									//the number of elements
+	private int r;									//the size of each combination
+	private long numLeft;							//the combinations not yet generated
+	private long total;								//the number of combinations
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates a generator of the r element combinations of n
+	 *
+	 * @param int n: the number of elements, at least 1
+	 * @param int r: the size of each combination, at most n
+	********************************************************/
+	public CombinationGenerator(int n, int r){
+		if(r > n || r < 0){
+			throw new IllegalArgumentException();
+		}
+		if(n < 1){
+			throw new IllegalArgumentException();
+		}
+		this.n = n;
+		this.r = r;
+		a = new int[r];
+		total = choose(n, r);						//n choose r, without factorials
+		reset();
+	}
+
+
+	/********************************************************
+	 * @purpose Restarts the generator at the first combination
+	********************************************************/
+	public void reset(){
+		for(int i = 0; i < a.length; i++){
+			a[i] = i;
+		}
+		numLeft = total;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of combinations not yet generated
+	 *
+	 * @return long: the combinations left
+	********************************************************/
+	public long getNumLeft(){
+		return numLeft;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if there are more combinations
+	 *
+	 * @return boolean: if getNext will return a new combination
+	********************************************************/
+	public boolean hasMore(){
+		return numLeft > 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the total number of combinations
+	 *
+	 * @return long: n choose r
+	********************************************************/
+	public long getTotal(){
+		return total;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the next combination. The array is reused by
+	 * 		the generator and changes on the next call
+	 *
+	 * @return int[]: the combination, in increasing order
+	********************************************************/
+	public int[] getNext(){
+		if(numLeft == total){						//first combination
+			numLeft--;
+			return a;
+		}
+
+		int i = r - 1;
+		while(a[i] == n - r + i){					//find the rightmost element that can grow
+			i--;
+		}
+		a[i] = a[i] + 1;
+		for(int j = i + 1; j < r; j++){
+			a[j] = a[i] + j - i;
+		}
+
+		numLeft--;
+		return a;
+	}
+
+
+	/********************************************************
+	 * @purpose Positions the generator so that the next call to getNext
+	 * 		returns the combination of the specified rank
+	 *
+	 * @param long rank: the rank of the combination, from 0
+	********************************************************/
+	public void setPosition(long rank){
+		if(rank == 0){
+			reset();								//getNext returns the first as is
+		}
+		else{
+			unrank(n, r, rank - 1, a);				//getNext advances from the previous one
+			numLeft = total - rank;
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the combination of the specified rank in the
+	 * 		lexicographic order getNext generates
+	 *
+	 * @param long rank: the rank of the combination, from 0
+	 *
+	 * @return int[]: a new array holding the combination
+	********************************************************/
+	public int[] unrank(long rank){
+		int[] into = new int[r];
+		unrank(n, r, rank, into);
+		return into;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns every combination, in order. The combinations
+	 * 		are separate arrays, so they can be shared without copying
+	 *
+	 * @return int[][]: the table of combinations
+	********************************************************/
+	public int[][] toTable(){
+		if(total > Integer.MAX_VALUE){
+			throw new IllegalStateException("Too many combinations for a table: " + total);
+		}
+
+		int[][] table = new int[(int)total][];
+		reset();
+
+		for(int rank = 0; rank < table.length; rank++){
+			table[rank] = getNext().clone();
+		}
+		reset();
+		return table;
+	}
+
+
+	/********************************************************
+	 * @purpose Computes n choose r, saturating at Long.MAX_VALUE
+	 *
+	 * @param int n: the number of elements
+	 * @param int r: the size of each combination
+	 *
+	 * @return long: the number of combinations
+	********************************************************/
+	public static long choose(int n, int r){
+		if(r < 0 || r > n){
+			return 0;
+		}
+		r = Math.min(r, n - r);						//use the smaller half
+
+		long result = 1;
+		for(int i = 1; i <= r; i++){
+			long factor = n - r + i;
+			if(result > Long.MAX_VALUE / factor){
+				return Long.MAX_VALUE;				//saturate
+			}
+			result = result * factor / i;			//exact, a product of i consecutive integers
+		}
+		return result;
+	}
+
+
+	/********************************************************
+	 * @purpose Fills the array with the combination of the specified
+	 * 		rank, using the combinatorial number system
+	 *
+	 * @param int n: the number of elements
+	 * @param int r: the size of each combination
+	 * @param long rank: the rank of the combination, from 0
+	 * @param int[] into: the array to fill, at least r long
+	********************************************************/
+	public static void unrank(int n, int r, long rank, int[] into){
+		int element = 0;							//the smallest element still available
+
+		for(int pos = 0; pos < r; pos++){
+			while(true){
+				long after = choose(n - element - 1, r - pos - 1);//combinations starting with element
+
+				if(rank < after){
+					into[pos] = element++;			//the element is in the combination
+					break;
+				}
+				rank -= after;						//skip every combination starting with it
+				element++;
+			}
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the mixed radix digits of the specified index, the
+	 * 		first digit changing fastest
+	 *
+	 * @param long index: the index in the product of the radixes
+	 * @param int[] radix: the number of values of each digit
+	 * @param int[] into: the digits to fill
+	********************************************************/
+	public static void unrankProduct(long index, int[] radix, int[] into){
+		for(int digit = 0; digit < radix.length; digit++){
+			into[digit] = (int)(index % radix[digit]);
+			index /= radix[digit];
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Advances mixed radix digits by one, the first digit
+	 * 		changing fastest
+	 *
+	 * @param int[] digits: the digits to advance
+	 * @param int[] radix: the number of values of each digit
+	 *
+	 * @return boolean: false once every digit has wrapped around
+	********************************************************/
+	public static boolean advanceProduct(int[] digits, int[] radix){
+		for(int digit = 0; digit < digits.length; digit++){
+			if(++digits[digit] < radix[digit]){
+				return true;						//no carry
+			}
+			digits[digit] = 0;						//carry into the next digit
+		}
+		return false;
+	}
+}
@@ -0,0 +1,290 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ConflictMatrix.java
+ *
+ * Contains class:
+ *
+ * 		ConflictMatrix:
+ *
+ * 			Purpose: To store which pairs of candidate sections of
+ * 				a schedule build conflict
+ *
+ * 		RowTask:
+ *
+ * 			Purpose: To fill a range of matrix rows in parallel
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the course section lists
+import java.util.concurrent.ForkJoinPool;			//runs the row tasks
+import java.util.concurrent.RecursiveAction;		//splits the rows between threads
+
+
+/********************************************************
+ * Class ConflictMatrix
+ *
+ * @purpose Numbers every section of the requested courses, course
+ * 		after course, and stores one bit row per section marking the
+ * 		sections it conflicts with. The rows are filled once per build
+ * 		so that the enumeration looks up a pair instead of calling
+ * 		Section.conflictsWith for it every time it is tested.
+********************************************************/
+public class ConflictMatrix {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700001L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the matrix
+	********************************************************/
+	protected final static int rowsPerTask = 16;	//rows filled by a task without splitting
+
+
+	/********************************************************
+	 * The following are private fields of the matrix
+	********************************************************/
+	private final Section[] sections;				//the candidate sections by index
+	private final int[] offsets;					//the first index of each course
+	private final int words;						//longs per row
+	private final long[][] rows;					//the conflict rows
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Numbers the sections of the courses and creates empty rows
+	 *
+	 * @param Course[] possible: the requested courses
+	********************************************************/
+	public ConflictMatrix(Course[] possible){
+		offsets = new int[possible.length + 1];
+
+		for(int course = 0; course < possible.length; course++){
+			offsets[course + 1] = offsets[course] + possible[course].getNumOfSections();
+		}
+
+		sections = new Section[offsets[possible.length]];
+
+		for(int course = 0; course < possible.length; course++){
+			ArrayList<Section> list = possible[course].getSectionsLl();
+
+			for(int pos = 0; pos < list.size(); pos++){
+				sections[offsets[course] + pos] = list.get(pos);
+			}
+		}
+
+		words = (sections.length + Long.SIZE - 1) / Long.SIZE;
+		rows = new long[sections.length][words];
+	}
+
+
+	/********************************************************
+	 * @purpose Fills every row, splitting the rows between the threads
+	 * 		of the pool
+	 *
+	 * @param ForkJoinPool pool: the pool to run on
+	********************************************************/
+	public void build(ForkJoinPool pool){
+		pool.invoke(new RowTask(0, sections.length));
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the two sections conflict
+	 *
+	 * @param int first: the index of the first section
+	 * @param int second: the index of the second section
+	 *
+	 * @return boolean: if the sections conflict
+	********************************************************/
+	public boolean conflicts(int first, int second){
+		return (rows[first][second / Long.SIZE] & (1L << (second % Long.SIZE))) != 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the section conflicts with any of the
+	 * 		specified sections
+	 *
+	 * @param int index: the index of the section
+	 * @param int[] used: the indices to check against
+	 * @param int count: the number of indices used
+	 *
+	 * @return boolean: if any pair conflicts
+	********************************************************/
+	public boolean conflictsWithAny(int index, int[] used, int count){
+		for(int pos = 0; pos < count; pos++){
+			if(conflicts(index, used[pos])){
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the conflict row of the section. The row is
+	 * 		shared and must not be modified.
+	 *
+	 * @param int index: the index of the section
+	 *
+	 * @return long[]: the bits of the conflicting sections
+	********************************************************/
+	public long[] getRow(int index){
+		return rows[index];							//return the row
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the index of a section of a course
+	 *
+	 * @param int course: the index of the course
+	 * @param int section: the index of the section within the course
+	 *
+	 * @return int: the matrix index of the section
+	********************************************************/
+	public int index(int course, int section){
+		return offsets[course] + section;			//return the index
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the section at the matrix index
+	 *
+	 * @param int index: the matrix index
+	 *
+	 * @return Section: the section
+	********************************************************/
+	public Section getSection(int index){
+		return sections[index];						//return the section
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of sections in the matrix
+	 *
+	 * @return int: the number of rows
+	********************************************************/
+	public int size(){
+		return sections.length;						//return the number of sections
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of longs in each row
+	 *
+	 * @return int: the row length
+	********************************************************/
+	public int getWords(){
+		return words;								//return the row length
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the memory used by the rows
+	 *
+	 * @return long: the size of the rows in bytes
+	********************************************************/
+	public long getBytes(){
+		return (long)sections.length * words * (Long.SIZE / Byte.SIZE);
+	}
+
+
+	/********************************************************
+	 * @purpose Fills a single row
+	 *
+	 * @param int index: the row to fill
+	********************************************************/
+	private void fillRow(int index){
+		Section item = sections[index];
+		long[] row = rows[index];
+
+		for(int other = 0; other < sections.length; other++){
+			if(other != index && item.conflictsWith(sections[other])){
+				row[other / Long.SIZE] |= 1L << (other % Long.SIZE);
+			}
+		}
+	}
+
+
+	/********************************************************
+	 * Class RowTask
+	 *
+	 * @purpose Fills a range of rows, splitting it in half until
+	 * 		it is small enough. Each task only writes its own rows.
+	 *
+	 * @see RecursiveAction
+	********************************************************/
+	private class RowTask extends RecursiveAction {
+
+
+		/********************************************************
+		 * The following are private static constants for serialization
+		********************************************************/
+		private static final long serialVersionUID = 1L;
+
+
+		/********************************************************
+		 * The following are private fields of the task
+		********************************************************/
+		private final int from;						//the first row
+		private final int to;						//the row after the last
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a task for the rows from and up to to
+		********************************************************/
+		protected RowTask(int from, int to){
+			this.from = from;						//set the first row
+			this.to = to;							//set the end row
+		}
+
+
+		/********************************************************
+		 * @purpose Fills the rows or splits the range
+		 *
+		 * @see RecursiveAction
+		********************************************************/
+		@Override
+		protected void compute(){
+			if(to - from <= rowsPerTask){			//small enough to fill directly
+				for(int index = from; index < to; index++){
+					fillRow(index);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;			//split the range
+			invokeAll(new RowTask(from, middle), new RowTask(middle, to));
+		}
+	}
+}
@@ -62,6 +62,7 @@ public class Course implements Cloneable, Serializable, Comparable<Course>{
 	private String title;							//course title
 	private ArrayList<Section> sections;			//available sections
 	private boolean allClosed;						//if all courses closed
+	private transient long ratedGeneration;			//the generation the sections were rated with, 0 for none
 	
 	
 	/********************************************************
@@ -322,6 +323,7 @@ public class Course implements Cloneable, Serializable, Comparable<Course>{
 			this.setPerceivedCourse(item.getPerceivedCourse());
 			this.allClosed = item.isClosed();			
 			this.sections.add(item);					//add section to the course
+			this.ratedGeneration = 0;					//the new section is not rated
 			
 			return true;								//return success
 		}
@@ -334,6 +336,7 @@ public class Course implements Cloneable, Serializable, Comparable<Course>{
 			item.setPerceivedCourse(this.getPerceivedCourse());
 			this.allClosed = this.allClosed && item.isClosed();
 			this.sections.add(item);				//add section to course
+			this.ratedGeneration = 0;				//the new section is not rated
 			
 			return true;							//return success
 		}
@@ -403,15 +406,76 @@ public class Course implements Cloneable, Serializable, Comparable<Course>{
 	}
 	
 	
+	/********************************************************
+	 * @purpose Return the specified section without copying it, for
+	 * 		the schedule build where a clone per candidate is the
+	 * 		dominant cost. The section is shared with the course and
+	 * 		must not be modified by the caller
+	 * 
+	 * @param int pos: the position in the Arraylist to return
+	 * 
+	 * @return Section: the desired section itself
+	*********************************************************/
+	protected Section getSectionRef(int pos){
+		return this.sections.get(pos);					//returns the shared section
+	}
+	
+	
 	/********************************************************
 	 * @purpose Rerates all of the sections in the course
 	*********************************************************/
 	public void reRate(){
+		reRate(Main.prefs.getRatingContext());		//rerate with the current preferences
+	}
+	
+	
+	/********************************************************
+	 * @purpose Rerates all of the sections in the course
+	 * 
+	 * @param RatingContext context: the rating preferences
+	*********************************************************/
+	public void reRate(RatingContext context){
 		Iterator<Section> items = this.sections.iterator();	//get iterator of sections
 		
 		while(items.hasNext()){
-			items.next().reRate();	//for each section, rerate it
+			items.next().reRate(context);	//for each section, rerate it
 		}
+		
+		this.ratedGeneration = context.getGeneration();//the sections are current
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns if the sections were last rated with the
+	 * 		preferences of the context
+	 * 
+	 * @param RatingContext context: the rating preferences
+	 * 
+	 * @return boolean: if no section needs to be rerated
+	*********************************************************/
+	public boolean isRatedWith(RatingContext context){
+		return this.ratedGeneration == context.getGeneration();
+	}
+	
+	
+	/********************************************************
+	 * @purpose Rerates the sections and returns if any rating changed
+	 * 
+	 * @param RatingContext context: the rating preferences
+	 * 
+	 * @return boolean: if a section now has another rating
+	*********************************************************/
+	public boolean reRateChanged(RatingContext context){
+		boolean changed = false;
+		
+		for(Section item: this.sections){			//for each section, rerate it
+			long before = Double.doubleToLongBits(item.getRating());
+			item.reRate(context);
+			changed |= Double.doubleToLongBits(item.getRating()) != before;
+		}
+		
+		this.ratedGeneration = context.getGeneration();//the sections are current
+		return changed;
 	}
 	
 	
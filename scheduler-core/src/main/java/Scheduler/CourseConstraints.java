@@ -0,0 +1,508 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: CourseConstraints.java
+ *
+ * Contains classes:
+ *
+ * 		CourseConstraints:
+ *
+ * 			Purpose: To hold the primary, link, minimum count and number
+ * 				of sections constraints of a build as integer tables
+ *
+ * 		Tracker:
+ *
+ * 			Purpose: To follow the constraints as the search decides
+ * 				the courses one by one
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the primary course names
+import java.util.Arrays;							//for clearing the scratch space
+import java.util.HashMap;							//for numbering the course names
+
+
+/********************************************************
+ * Class CourseConstraints
+ *
+ * @purpose Compiles the checks Schedule.allPrimaryUsed, hasAllLinks,
+ * 		hasAllSections and the minimum count into tables over numbered
+ * 		course names. Courses are named by their perceived course, as
+ * 		in the Schedule checks; several courses may share a name.
+ *
+ * 		The linked course lists are merged into groups by union-find:
+ * 		a schedule holding any name of a group must hold all of them,
+ * 		which is what hasAllLinks requires once the lists that share a
+ * 		name are followed. Primary names are required names.
+ *
+ * 		The search decides the courses in order, so a name is lost once
+ * 		its last course is left out. A branch is dead when it loses a
+ * 		required name, or a name of a group it already holds, and a
+ * 		course cannot be used once its group has lost a name.
+********************************************************/
+public class CourseConstraints {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700009L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the constraints
+	********************************************************/
+	private final int[] courseOf;					//the course of each matrix index
+	private final int[] nameOf;						//the name of each course
+	private final int[] groupOf;					//the link group of each name
+	private final boolean[] required;				//if each name is primary
+	private final int[] sharing;					//the number of courses with each name
+	private final int[][] endsAt;					//the names whose last course is each course
+	private final int[] lostAtStart;				//the names of each group no course provides
+	private final int[] numberSelected;				//the number of sections of each course
+	private final int[] remaining;					//the most sections the courses from each index add
+	private final int useMin;						//the minimum number of sections
+	private boolean satisfiable;					//if every primary name has a course
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Numbers the course names and compiles the constraints
+	 *
+	 * @param Course[] possible: the requested courses
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param int useMin: the minimum number of sections in a schedule
+	 * @param ArrayList<String> primary: the primary course names
+	 * @param LinkedCourses links: the linked course names
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	********************************************************/
+	public CourseConstraints(Course[] possible, int[] numberSelected, boolean[][] usable, int useMin, ArrayList<String> primary, LinkedCourses links, ConflictMatrix matrix){
+		this.numberSelected = numberSelected;		//set the number of each section
+		this.useMin = useMin;						//set the min number of sections
+
+		HashMap<String, Integer> names = new HashMap<String, Integer>();
+		int courses = possible.length;
+		nameOf = new int[courses];
+
+		for(int course = 0; course < courses; course++){
+			nameOf[course] = number(names, possible[course].getPerceivedCourse());
+		}
+		int provided = names.size();				//names below this have a course
+
+		for(String name: primary){
+			number(names, name);
+		}
+		for(CourseList link: links){
+			for(String name: link){
+				number(names, name);
+			}
+		}
+
+		int[] parent = new int[names.size()];		//union-find over the names
+		for(int name = 0; name < parent.length; name++){
+			parent[name] = name;
+		}
+		for(CourseList link: links){
+			int first = -1;
+
+			for(String name: link){
+				int root = find(parent, names.get(name));
+
+				if(first < 0){
+					first = root;
+				}
+				else{
+					parent[root] = first;			//merge the lists sharing a name
+					first = find(parent, first);
+				}
+			}
+		}
+
+		groupOf = new int[parent.length];
+		lostAtStart = new int[parent.length];
+		for(int name = 0; name < parent.length; name++){
+			groupOf[name] = find(parent, name);
+
+			if(name >= provided){					//no course can provide it
+				lostAtStart[groupOf[name]]++;
+			}
+		}
+
+		sharing = new int[parent.length];
+		for(int course = 0; course < courses; course++){
+			sharing[nameOf[course]]++;
+		}
+
+		required = new boolean[parent.length];
+		satisfiable = true;
+		for(String name: primary){
+			int id = names.get(name);
+			required[id] = true;
+			satisfiable &= id < provided;			//a primary name without a course
+		}
+
+		int[] last = new int[parent.length];		//the last course of each name
+		int[] ending = new int[courses];
+		for(int course = 0; course < courses; course++){
+			last[nameOf[course]] = course;
+		}
+		for(int name = 0; name < provided; name++){
+			ending[last[name]]++;
+		}
+		endsAt = new int[courses][];
+		for(int course = 0; course < courses; course++){
+			endsAt[course] = new int[ending[course]];
+			ending[course] = 0;
+		}
+		for(int name = 0; name < provided; name++){
+			endsAt[last[name]][ending[last[name]]++] = name;
+		}
+
+		remaining = new int[courses + 1];
+		for(int course = courses - 1; course >= 0; course--){
+			int count = 0;
+
+			for(boolean section: usable[course]){
+				count += section ? 1 : 0;
+			}
+			remaining[course] = remaining[course + 1] + (count >= numberSelected[course] ? numberSelected[course] : 0);
+		}
+
+		courseOf = new int[matrix.size()];
+		for(int course = 0; course < courses; course++){
+			for(int section = 0; section < possible[course].getNumOfSections(); section++){
+				courseOf[matrix.index(course, section)] = course;
+			}
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of the name, numbering it if new
+	 *
+	 * @param HashMap<String, Integer> names: the names numbered so far
+	 * @param String name: the name
+	 *
+	 * @return int: the number of the name
+	********************************************************/
+	private static int number(HashMap<String, Integer> names, String name){
+		Integer id = names.get(name);
+
+		if(id == null){
+			id = names.size();
+			names.put(name, id);
+		}
+		return id;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the root of the name's set, halving the path
+	 *
+	 * @param int[] parent: the parent of each name
+	 * @param int name: the name
+	 *
+	 * @return int: the root name
+	********************************************************/
+	private static int find(int[] parent, int name){
+		while(parent[name] != name){
+			parent[name] = parent[parent[name]];
+			name = parent[name];
+		}
+		return name;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if every primary name has a course
+	 *
+	 * @return boolean: false if no schedule can hold every primary course
+	********************************************************/
+	public boolean isSatisfiable(){
+		return satisfiable;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if every valid schedule must hold the course: it
+	 * 		is primary and no other course has its name
+	 *
+	 * @param int course: the index of the course
+	 *
+	 * @return boolean: if the course is required
+	********************************************************/
+	public boolean isRequired(int course){
+		return required[nameOf[course]] && sharing[nameOf[course]] == 1;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the course of a section
+	 *
+	 * @param int index: the matrix index of the section
+	 *
+	 * @return int: the index of the course
+	********************************************************/
+	public int courseOf(int index){
+		return courseOf[index];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the sections can still reach the minimum
+	 * 		count once the courses before next are decided
+	 *
+	 * @param int next: the first course not yet decided
+	 * @param int depth: the number of sections so far
+	 *
+	 * @return boolean: if the minimum can be reached
+	********************************************************/
+	public boolean canReachMinimum(int next, int depth){
+		return depth + remaining[next] >= useMin;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if a finished schedule meets every constraint.
+	 * 		Sections dropped by a conflict may leave a course short,
+	 * 		so the number of each course is checked as in hasAllSections.
+	 *
+	 * @param int[] sections: the matrix indices of the schedule, by course
+	 * @param int count: the number of sections
+	 * @param int[] perCourse: scratch space, one entry per course
+	 * @param int[] perName: scratch space, one entry per name
+	 * @param int[] perGroup: scratch space, one entry per name
+	 *
+	 * @return boolean: if the schedule is valid
+	********************************************************/
+	public boolean accepts(int[] sections, int count, int[] perCourse, int[] perName, int[] perGroup){
+		if(count < useMin){
+			return false;							//not enough sections
+		}
+
+		Arrays.fill(perCourse, 0);
+		Arrays.fill(perName, 0);
+		Arrays.fill(perGroup, 0);
+
+		for(int pos = 0; pos < count; pos++){
+			int course = courseOf[sections[pos]];
+			perCourse[course]++;
+			perName[nameOf[course]]++;
+		}
+
+		for(int course = 0; course < perCourse.length; course++){
+			if(perName[nameOf[course]] > 0 && perCourse[course] < numberSelected[course]){
+				return false;						//the course's name is held with too few sections
+			}
+		}
+
+		for(int name = 0; name < perName.length; name++){
+			if(required[name] && perName[name] == 0){
+				return false;						//a primary course is missing
+			}
+			if(perName[name] > 0){
+				perGroup[groupOf[name]]++;
+			}
+		}
+
+		for(int name = 0; name < perName.length; name++){
+			if(perName[name] == 0 && perGroup[groupOf[name]] > 0){
+				return false;						//part of a link group is missing
+			}
+		}
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of names, the size of the per name
+	 * 		and per group scratch space
+	 *
+	 * @return int: the number of names
+	********************************************************/
+	public int getNames(){
+		return groupOf.length;
+	}
+
+
+	/********************************************************
+	 * @purpose Creates a tracker for a branch of the search, with the
+	 * 		courses before start decided as in the prefix
+	 *
+	 * @param int[] prefix: the matrix indices of the partial schedule
+	 * @param int start: the first course not yet decided
+	 *
+	 * @return Tracker: the tracker of the branch
+	********************************************************/
+	public Tracker newTracker(int[] prefix, int start){
+		Tracker tracker = new Tracker();
+		int pos = 0;
+
+		for(int course = 0; course < start; course++){
+			boolean used = false;
+
+			while(pos < prefix.length && courseOf[prefix[pos]] == course){
+				used = true;
+				pos++;
+			}
+			tracker.alive &= tracker.decide(course, used);
+		}
+		return tracker;
+	}
+
+
+	/********************************************************
+	 * Class Tracker
+	 *
+	 * @purpose Counts the names held and lost on one branch of the
+	 * 		search. Each decide is undone in reverse order, so a
+	 * 		tracker belongs to a single task.
+	********************************************************/
+	public class Tracker {
+
+
+		/********************************************************
+		 * The following are private fields of the tracker
+		********************************************************/
+		private final int[] held;					//the courses used of each name
+		private final int[] active;					//the names held of each group
+		private final int[] lost;					//the names lost of each group
+		private boolean alive;						//if the prefix meets the constraints
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a tracker with no course decided
+		********************************************************/
+		private Tracker(){
+			held = new int[groupOf.length];
+			active = new int[groupOf.length];
+			lost = lostAtStart.clone();
+			alive = satisfiable;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns if the prefix of the branch meets the
+		 * 		constraints
+		 *
+		 * @return boolean: if the branch may be searched
+		********************************************************/
+		public boolean isAlive(){
+			return alive;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns if the course may still be used
+		 *
+		 * @param int course: the index of the course
+		 *
+		 * @return boolean: false once its link group lost a name
+		********************************************************/
+		public boolean canUse(int course){
+			return lost[groupOf[nameOf[course]]] == 0;
+		}
+
+
+		/********************************************************
+		 * @purpose Records the decision of a course and returns if the
+		 * 		branch can still meet the constraints. Must be undone
+		 * 		whatever it returns
+		 *
+		 * @param int course: the index of the course decided
+		 * @param boolean used: if the course was given its sections
+		 *
+		 * @return boolean: false if the branch is dead
+		********************************************************/
+		public boolean decide(int course, boolean used){
+			boolean valid = true;
+
+			if(used && held[nameOf[course]]++ == 0){//the name is now held
+				int group = groupOf[nameOf[course]];
+				active[group]++;
+				valid &= lost[group] == 0;			//its group already lost a name
+			}
+
+			for(int name: endsAt[course]){			//no later course has these names
+				if(held[name] == 0){
+					lost[groupOf[name]]++;
+					valid &= !required[name] && active[groupOf[name]] == 0;
+				}
+			}
+			return valid;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the part of the tracker later decisions depend
+		 * 		on: if each name is held, and if each group holds or has
+		 * 		lost a name. Two branches with the same state accept the
+		 * 		same completions
+		 *
+		 * @return long[]: three bits per name
+		********************************************************/
+		public long[] getState(){
+			long[] state = new long[(3 * groupOf.length + Long.SIZE - 1) / Long.SIZE];
+
+			for(int name = 0; name < groupOf.length; name++){
+				int bit = 3 * name;
+
+				if(held[name] > 0){
+					state[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+				}
+				if(active[name] > 0){				//groups are numbered by their root name
+					state[(bit + 1) / Long.SIZE] |= 1L << ((bit + 1) % Long.SIZE);
+				}
+				if(lost[name] > 0){
+					state[(bit + 2) / Long.SIZE] |= 1L << ((bit + 2) % Long.SIZE);
+				}
+			}
+			return state;
+		}
+
+
+		/********************************************************
+		 * @purpose Undoes the decision of a course
+		 *
+		 * @param int course: the index of the course decided
+		 * @param boolean used: if the course was given its sections
+		********************************************************/
+		public void undo(int course, boolean used){
+			for(int name: endsAt[course]){
+				if(held[name] == 0){
+					lost[groupOf[name]]--;
+				}
+			}
+
+			if(used && --held[nameOf[course]] == 0){
+				active[groupOf[nameOf[course]]]--;
+			}
+		}
+	}
+}
@@ -37,13 +37,18 @@ package Scheduler;									//declare as a member of scheduler package
 import java.io.Serializable;						//import serializable interface
 import java.util.Arrays;							//import array util class
 import java.util.Calendar;							//import java calendar utility
+import java.util.Random;							//for drawing schedules at random
 import java.util.TreeMap;							//import tree map for database
 import java.util.Vector;
+import java.util.concurrent.TimeUnit;				//for the build time limit
 
 import javax.swing.JOptionPane;
 import javax.swing.ProgressMonitor;					//import the progress bar
 import java.util.ArrayList;							//import the arrayList utility
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 
 /********************************************************
  * Class: Database
@@ -64,6 +69,7 @@ public class Database implements Serializable, Cloneable{
 	private boolean undergrad;						//flag for if the database has undergrad info
 	private boolean gradCampus;						//flag for if the database has on campus grad info
 	private boolean gradDist;						//flag for if the database has off campus grad info
+	private transient NogoodCache nogoods;			//the nogoods learned by the builds of this term
 		
 	
 	/********************************************************
@@ -71,6 +77,10 @@ public class Database implements Serializable, Cloneable{
 	*********************************************************/
 	protected final static int empty = 0;			//value for empty
 	protected final static int beginIndex = 0;		//starting index for loops
+	protected final static long countBudget = 1 << 20;//sections a build may try counting its schedules
+	protected final static int sampleSize = 100;	//schedules sampled when no result limit is set
+	
+	private static Logger log = LoggerFactory.getLogger(Database.class.getName());
 	
 	
 	/********************************************************
@@ -199,7 +209,6 @@ public class Database implements Serializable, Cloneable{
 		Course[] possible = new Course[classes.length];//space for possible courses
 		
 		int permute = 1;							//min number of permutations
-		int count = 0;
 		
 		ProgressMonitor tempMon = sync.getWatch();	//get the watch	
 		tempMon.setMillisToDecideToPopup(100);		//set to decide to popup right away
@@ -208,24 +217,15 @@ public class Database implements Serializable, Cloneable{
 		sync.setWatch(tempMon);						//set the monitor
 		
 		sync.updateWatch("Calculating Combinations", 1);//update the monitor
-		int pos = beginIndex;
-		try{
-			for(; pos < classes.length && permute > 0; pos++){
-				possible[pos] = this.database.get(classes[pos]);//add the course
-				permute *= possible[pos].getNumOfSections() + permOffset[pos];//get permutations
-			}
-		}
-		catch(NullPointerException ex){
-			JOptionPane.showMessageDialog(sync.getOwner(), 
-				"Unable to create schedules for the selected classes because "  + classes[pos] + " does not exist.\n " +
-				"Building schedules without " + classes[pos] + ".", 
-				"Unable to Build Schedules", JOptionPane.ERROR_MESSAGE);
-			sync.getOwner().scheduleClassModel.removeElement(classes[pos]);
-			sync.getOwner().scheduleClassList.setModel(sync.getOwner().scheduleClassModel);
-			sync.failed = true;
+		
+		if(!findCourses(classes, possible, sync)){	//get the courses
 			return new Schedule[0];
 		}
 		
+		for(int pos = beginIndex; pos < classes.length && permute > 0; pos++){
+			permute *= possible[pos].getNumOfSections() + permOffset[pos];//get permutations
+		}
+		
 		if(permute <= 0){							//check if valid permute
 			sync.closeWatch();						//close the watch
 			return null;							//return null to thread
@@ -233,117 +233,445 @@ public class Database implements Serializable, Cloneable{
 		
 		sync.setPermute(permute);
 		
+		ConflictMatrix matrix = buildMatrix(possible, sync);//compare every pair of sections once
+		
+		int limit = Main.prefs.getResultLimit();	//the number of best schedules kept
+		ArrayList<ScheduleHeap> heaps = new ArrayList<ScheduleHeap>();
+		
 		boolean plural = false;
 		
 		for(int value: numberSelected){
 			plural |= (value > 1);
 		}
 	
-		int codesPerThread = permute/Main.availProcs;//find maximum number of grey codes per thread based on 1 thread/logical core + master thread 
+		int[][][] tables = new int[possible.length][][];//every combination of each course
+		int[] radix = new int[possible.length];		//the number of combinations of each course
+		long total = 1;								//the number of grey codes
 		
-		Main.prefs.setGreyCodeLimit((codesPerThread < 20) ? 20 : codesPerThread);//set the number of grey codes to the optimum value over 20
-		sync.getWatch().setMaximum(permute + 1);	//set maximum value for progress bar
+		boolean[][] usable = findUsable(possible, sectionsAllowed, allowClosed, sync.getType());
 		
-		CombinationGenerator[] generate = new CombinationGenerator[possible.length];
-		
-		for(int col = 0; col < generate.length; col++){
-			generate[col] = new CombinationGenerator(possible[col].getNumOfSections() + 1, numberSelected[col]);
+		if(!reportingEnabled && !eliminate(possible, numberSelected, useMin, usable, matrix, sync)){//the conflicts of removed sections would not be reported
+			sync.closeWatch();						//close the watch
+			return new Schedule[0];					//no schedule satisfies the courses
 		}
 		
-		ArrayList<int[][]> greyCodes = new ArrayList<int[][]>();
-		int[][] comb = new int[possible.length][];
-		boolean[] roll = new boolean[possible.length];
-		boolean[] next = roll.clone();
+		CourseConstraints constraints = new CourseConstraints(possible, numberSelected, usable, useMin, sync.getPrimary(), sync.getOwner().dependancy, matrix);
 		
-		for(int col = 0; col < generate.length; col++){
-			comb[col] = generate[col].getNext().clone();
+		if(!reportingEnabled && !constraints.isSatisfiable()){//a primary course was not requested
+			sync.closeWatch();						//close the watch
+			return new Schedule[0];
 		}
-		boolean toStop = false;
 		
-		major:
-		while(true){
-			for(int col = 0; col < generate.length; col++){
-				if(roll[col]){
-					if(!generate[col].hasMore()){
-						if(col == generate.length - 1){
-							toStop = true;
-						}
-						else{
-							roll[col + 1] = true;
-						}
-						generate[col].reset();
-					}
-					next[col] = false;
-					comb[col] = generate[col].getNext().clone();
-				}
+		for(int col = 0; col < tables.length; col++){
+			int[] domain = findDomain(usable[col]);
+			tables[col] = findChoices(possible, col, domain, sectionsAllowed, numberSelected[col]);
+			radix[col] = tables[col].length;
+			
+			if(radix[col] == 0){					//the course can neither be used nor left out
+				sync.closeWatch();					//close the watch
+				return new Schedule[0];				//no schedule satisfies it
 			}
 			
-			next[0] = true;
-			roll = next.clone();
+			if(total > Long.MAX_VALUE / radix[col]){//too many to enumerate
+				sync.closeWatch();					//close the watch
+				return null;						//return null to thread
+			}
+			total *= radix[col];
+		}
+		
+		long codesPerThread = Math.max(20, total/Main.availProcs);//maximum number of grey codes per thread based on 1 thread/logical core, at least 20
+		
+		Main.prefs.setGreyCodeLimit((int)Math.min(Integer.MAX_VALUE, codesPerThread));//remember the number of grey codes per thread
+		sync.setPermute((int)Math.min(Integer.MAX_VALUE - 1, total));
+		sync.getWatch().setMaximum((int)Math.min(Integer.MAX_VALUE, total + 1));//set maximum value for progress bar
+		
+		for(long first = 0, last; first < total; first = last){//split the grey codes into ranges
+			last = (total - first > codesPerThread) ? first + codesPerThread : total;//without passing Long.MAX_VALUE
+			
+			BuildAssistThread helper = new BuildAssistThread();//create thread
+			helper.setRange(first, last);			//set the grey codes
+			helper.setTables(tables);				//set the combinations of each course
+			helper.setSectionsAllowed(sectionsAllowed);//set the sections allowed
+			helper.setAllowClosed(allowClosed);		//allow closed courses
+			helper.setPermute(permute);				//set total number of threads
+			helper.setResult(result);				//set the result object
+			helper.setPossible(possible);			//set the possible courses
+			helper.setUseMin(useMin);				//set the min use value
+			helper.setSync(sync);					//set the sync object
+			helper.setReportingEnabled(reportingEnabled);//set reporting enabled
+			helper.setNumberSelected(numberSelected);//set the number of each section selected
+			helper.setMatrix(matrix);				//set the section conflicts
+			helper.setConstraints(constraints);		//set the compiled constraints
 			
-			for(int spot = 0; spot < comb.length; spot++){
-				for(int sec = 0; sec < comb[spot].length; sec++){
-					try{
-						if(!sectionsAllowed[spot][comb[spot][sec]]){
-							continue major;
-						}
-					}
-					catch(IndexOutOfBoundsException ex){}
-					catch(NullPointerException ex1){}
-				}
+			if(limit > 0){							//keep the best schedules per helper
+				ScheduleHeap best = new ScheduleHeap(limit);
+				heaps.add(best);
+				helper.setBest(best);
 			}
 			
-			if(greyCodes.size() == Main.prefs.getGreyCodeLimit() - 1 || toStop){
-				
-				BuildAssistThread helper = new BuildAssistThread();//create thread
-				helper.setGreyCodes(greyCodes);			//set the grey codes
-				helper.setAllowClosed(allowClosed);		//allow closed courses
-				helper.setPermute(permute);				//set total number of threads
-				helper.setResult(result);				//set the result object
-				helper.setPossible(possible);			//set the possible courses
-				helper.setUseMin(useMin);				//set the min use value
-				helper.setSync(sync);					//set the sync object
-				helper.setReportingEnabled(reportingEnabled);//set reporting enabled
-				helper.setNumberSelected(numberSelected);//set the number of each section selected
-				
-				sync.addHelper(helper);					//add the helper
-				
-				Main.threadExec.execute(helper);		//execute the helper
-				
-				count += greyCodes.size();
-				if(count > permute){
-					sync.setPermute(count);
-				}
-				
-				greyCodes = new ArrayList<int[][]>();
+			sync.addHelper(helper);					//add the helper
+			
+			Main.threadExec.execute(helper);		//execute the helper
+		}
+		
+		if(!sync.awaitHelpers()){					//block until the helpers finish or are cancelled
+			sync.finished = permute;				//set finished to permute
+			return null;							//return null to master thread
+		}
+		
+		Schedule[] temp;
+		
+		if(limit > 0){								//merge the best of each helper
+			temp = ScheduleHeap.merge(heaps, limit);
+		}
+		else{
+			temp = result.toArray(new Schedule[0]);//get the schedule[]
+			Arrays.sort(temp);						//sort it
+		}
+		sync.updateWatch("Updating List", -1);		//set new note
+		log.info("Schedule build statistics: {}", sync.getStatistics());
+		return temp;								//return the results
+	}
+	
+	
+	
+	/********************************************************
+	 * @purpose Calculates the schedules by a backtracking search
+	 * 		instead of enumerating every combination
+	 * 
+	 * @see ScheduleSearch
+	 * 
+	 * @param long timeLimit: the milliseconds the build may take before
+	 * 		it stops with the best schedules so far, 0 for no limit
+	 * 
+	 * @return Schedule[]: the possible schedules based on parameters,
+	 * 		or null if the build was cancelled
+	*********************************************************/
+	public Schedule[] searchSchedules(String[] classes, boolean allowClosed, int useMin, ThreadSynch sync, boolean[][] sectionsAllowed, int[] numberSelected, long timeLimit){
+		long deadline = (timeLimit > 0) ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimit) : 0;
+		
+		ProgressMonitor tempMon = sync.getWatch();	//get the watch	
+		tempMon.setMillisToDecideToPopup(100);		//set to decide to popup right away
+		tempMon.setMillisToPopup(100);				//set to popup right away
+		
+		sync.setWatch(tempMon);						//set the monitor
+		
+		ScheduleSearch search = prepareSearch(classes, allowClosed, useMin, sync, sectionsAllowed, numberSelected);
+		
+		if(search == null){
+			return new Schedule[0];					//no schedule satisfies the courses
+		}
+		search.setLimit(Main.prefs.getResultLimit());//keep only the best schedules
+		search.setDeadline(deadline);				//stop with the best so far once out of time
+		
+		if(Main.prefs.getResultLimit() > 0 || deadline != 0){//tell the user how many may be left out, if quick
+			sync.updateWatch("Counting Schedules", Database.beginIndex);
+			sync.getStatistics().setCounted(search.count(countBudget));//gives up halfway to the deadline
+			sync.publishCount();					//show the count before the search
+		}
+		
+		search.setNogoods(getNogoods());			//reuse the nogoods of the earlier builds
+		Schedule[] temp = search.search();			//run the search
+		
+		log.info("Schedule build statistics: {}", sync.getStatistics());
+		return temp;								//return the results
+	}
+	
+	
+	/********************************************************
+	 * @purpose Counts the schedules a build of the courses would find
+	 * 		with no result limit, without building any of them
+	 * 
+	 * @see ScheduleCounter
+	 * 
+	 * @return long: the number of schedules, Long.MAX_VALUE if more,
+	 * 		or -1 if the count was cancelled
+	*********************************************************/
+	public long countSchedules(String[] classes, boolean allowClosed, int useMin, ThreadSynch sync, boolean[][] sectionsAllowed, int[] numberSelected){
+		ScheduleSearch search = prepareSearch(classes, allowClosed, useMin, sync, sectionsAllowed, numberSelected);
+		
+		return (search == null) ? 0 : search.count(Long.MAX_VALUE);
+	}
+	
+	
+	/********************************************************
+	 * @purpose Draws schedules of the courses at random instead of
+	 * 		building them all, for requests with too many schedules to
+	 * 		look through
+	 * 
+	 * @see ScheduleSearch.sample
+	 * 
+	 * @param int wanted: the number of schedules wanted
+	 * @param boolean diverse: if the schedules should differ the most
+	 * 		instead of being drawn uniformly
+	 * 
+	 * @return Schedule[]: the sorted schedules, or null if cancelled
+	*********************************************************/
+	public Schedule[] sampleSchedules(String[] classes, boolean allowClosed, int useMin, ThreadSynch sync, boolean[][] sectionsAllowed, int[] numberSelected, int wanted, boolean diverse){
+		ProgressMonitor tempMon = sync.getWatch();	//get the watch	
+		tempMon.setMillisToDecideToPopup(100);		//set to decide to popup right away
+		tempMon.setMillisToPopup(100);				//set to popup right away
+		
+		sync.setWatch(tempMon);						//set the monitor
+		
+		ScheduleSearch search = prepareSearch(classes, allowClosed, useMin, sync, sectionsAllowed, numberSelected);
+		
+		if(search == null){
+			return new Schedule[0];					//no schedule satisfies the courses
+		}
+		
+		Schedule[] temp = search.sample(wanted, diverse, new Random());
+		
+		log.info("Schedule sample statistics: {}", sync.getStatistics());
+		return temp;								//return the results
+	}
+	
+	
+	/********************************************************
+	 * @purpose Finds the courses, builds their conflict matrix, reduces
+	 * 		them to their usable sections and groups them, for a search
+	 * 		or a count
+	 * 
+	 * @return ScheduleSearch: the prepared search, or null if no
+	 * 		schedule can exist
+	*********************************************************/
+	private ScheduleSearch prepareSearch(String[] classes, boolean allowClosed, int useMin, ThreadSynch sync, boolean[][] sectionsAllowed, int[] numberSelected){
+		Course[] possible = new Course[classes.length];//space for possible courses
+		
+		if(!findCourses(classes, possible, sync)){	//get the courses
+			return null;
+		}
+		
+		ConflictMatrix matrix = buildMatrix(possible, sync);//compare every pair of sections once
+		
+		ScheduleSearch search = new ScheduleSearch(possible, allowClosed, useMin, sync, sectionsAllowed, numberSelected, term, matrix);
+		
+		boolean[][] usable = findUsable(possible, sectionsAllowed, allowClosed, sync.getType());
+		
+		if(!eliminate(possible, numberSelected, useMin, usable, matrix, sync)){
+			return null;							//no schedule satisfies the courses
+		}
+		search.setUsable(usable);					//search only the sections left
+		
+		SectionGroups groups = new SectionGroups(possible, numberSelected, usable, matrix);
+		sync.getStatistics().setGroups(groups);		//record how far the sections collapsed
+		search.setGroups(groups);					//search one section per meeting time
+		return search;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns the nogoods learned by the builds of this
+	 * 		database, created on first use. They are not saved with
+	 * 		the database.
+	 * 
+	 * @return NogoodCache: the cache of the database
+	*********************************************************/
+	protected synchronized NogoodCache getNogoods(){
+		if(nogoods == null){
+			nogoods = new NogoodCache();
+		}
+		return nogoods;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Builds the conflict matrix of the requested courses in
+	 * 		parallel and records it in the build statistics
+	 * 
+	 * @param Course[] possible: the requested courses
+	 * @param ThreadSynch sync: the sync object for the build
+	 * 
+	 * @return ConflictMatrix: the filled matrix
+	*********************************************************/
+	private ConflictMatrix buildMatrix(Course[] possible, ThreadSynch sync){
+		long start = System.currentTimeMillis();	//time the construction
+		
+		ConflictMatrix matrix = new ConflictMatrix(possible);
+		matrix.build(Main.forkJoin);				//fill the rows
+		
+		sync.getStatistics().setMatrix(matrix, System.currentTimeMillis() - start);
+		return matrix;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns the sections of each course a build may use:
+	 * 		those allowed by the user, open unless closed sections are
+	 * 		allowed, and of the course type of the build. Schedules
+	 * 		holding any other section are always rejected, so they are
+	 * 		never tried
+	 * 
+	 * @param Course[] possible: the requested courses
+	 * @param boolean[][] sectionsAllowed: the allowed sections of each course
+	 * @param boolean allowClosed: if closed sections are allowed
+	 * @param CourseType type: the course type of the build
+	 * 
+	 * @return boolean[][]: if each section is usable
+	*********************************************************/
+	protected static boolean[][] findUsable(Course[] possible, boolean[][] sectionsAllowed, boolean allowClosed, CourseType type){
+		boolean[][] usable = new boolean[possible.length][];
+		
+		for(int course = 0; course < possible.length; course++){
+			usable[course] = new boolean[possible[course].getNumOfSections()];
+			
+			for(int index = 0; index < usable[course].length; index++){
+				Section section = possible[course].getSectionRef(index);
+				usable[course][index] = isAllowed(sectionsAllowed, course, index) && (allowClosed || !section.isClosed()) && section.fitsType(type);
 			}
-			else{
-				greyCodes.add(comb.clone());
+		}
+		return usable;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Removes the sections that conflict with every section of
+	 * 		a course they cannot be scheduled without, and records how
+	 * 		many were removed
+	 * 
+	 * @param Course[] possible: the requested courses
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param int useMin: the minimum number of sections in a schedule
+	 * @param boolean[][] usable: the usable sections, updated in place
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	 * @param ThreadSynch sync: the sync object for the build
+	 * 
+	 * @see ArcConsistency
+	 * 
+	 * @return boolean: false if no valid schedule can exist
+	*********************************************************/
+	private boolean eliminate(Course[] possible, int[] numberSelected, int useMin, boolean[][] usable, ConflictMatrix matrix, ThreadSynch sync){
+		ArcConsistency pass = new ArcConsistency(possible, numberSelected, sync.getPrimary(), sync.getOwner().dependancy, matrix);
+		boolean feasible = pass.reduce(usable, useMin);
+		
+		sync.getStatistics().setEliminated(pass.getEliminated());
+		
+		if(!feasible){
+			log.info("No schedule can hold the primary and linked courses, skipping the build: {}", sync.getStatistics());
+		}
+		return feasible;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns the indices of the usable sections of a course
+	 * 
+	 * @param boolean[] usable: if each section of the course is usable
+	 * 
+	 * @return int[]: the indices of the usable sections, in order
+	*********************************************************/
+	private static int[] findDomain(boolean[] usable){
+		ArrayList<Integer> domain = new ArrayList<Integer>();
+		
+		for(int index = 0; index < usable.length; index++){
+			if(usable[index]){
+				domain.add(index);
 			}
-			if(toStop){
-				break;
+		}
+		
+		int[] result = new int[domain.size()];
+		for(int pos = 0; pos < result.length; pos++){
+			result[pos] = domain.get(pos);
+		}
+		return result;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns the choices of a course for the grey codes:
+	 * 		every numberSelected subset of its usable sections, and
+	 * 		the index past the last section, which leaves the course
+	 * 		out. The course may be left out when numberSelected - 1
+	 * 		of its sections are allowed, as in the full enumeration
+	 * 
+	 * @param Course[] possible: the requested courses
+	 * @param int course: the index of the course
+	 * @param int[] domain: the usable sections of the course
+	 * @param boolean[][] sectionsAllowed: the allowed sections of each course
+	 * @param int select: the number of sections to choose
+	 * 
+	 * @return int[][]: the choices of the course
+	*********************************************************/
+	private int[][] findChoices(Course[] possible, int course, int[] domain, boolean[][] sectionsAllowed, int select){
+		if(select == 0){							//the course adds nothing
+			return new int[][]{new int[0]};
+		}
+		
+		ArrayList<int[]> choices = new ArrayList<int[]>();
+		
+		if(domain.length >= select){				//every subset of the usable sections
+			for(int[] subset: new CombinationGenerator(domain.length, select).toTable()){
+				for(int pos = 0; pos < subset.length; pos++){
+					subset[pos] = domain[subset[pos]];
+				}
+				choices.add(subset);
 			}
 		}
 		
-		while(sync.hasLivingHelpers()){				//check if threads still alive
-			if(sync.isCanceled()){					//check if cancelled
-				sync.cancel();						//cancel thread via the sync object
-				
-				sync.finished = permute;			//set finished to permute
+		int allowed = 0;							//sections allowed by the user
+		for(int index = 0; index < possible[course].getNumOfSections(); index++){
+			if(isAllowed(sectionsAllowed, course, index)){
+				allowed++;
 			}
 		}
 		
-		if(sync.isCanceled()){						//check if cancelled
-			return null;							//return null to master thread
+		if(allowed >= select - 1){					//the course may be left out
+			choices.add(new int[]{possible[course].getNumOfSections()});
 		}
 		
-		Schedule[] temp = result.toArray(new Schedule[0]);//get the schedule[]
-		Arrays.sort(temp);							//sort it
-		sync.updateWatch("Updating List", -1);		//set new note
-		return temp;								//return the results
+		return choices.toArray(new int[choices.size()][]);
+	}
+	
+	
+	/********************************************************
+	 * @purpose Returns if the section is allowed by the user. Missing
+	 * 		entries are allowed
+	 * 
+	 * @param boolean[][] sectionsAllowed: the allowed sections of each course
+	 * @param int course: the index of the course
+	 * @param int index: the index of the section
+	 * 
+	 * @return boolean: if the section may be used
+	*********************************************************/
+	private static boolean isAllowed(boolean[][] sectionsAllowed, int course, int index){
+		try{
+			return sectionsAllowed[course][index];
+		}
+		catch(IndexOutOfBoundsException ex){}
+		catch(NullPointerException ex1){}
+		
+		return true;
 	}
 	
 	
+	/********************************************************
+	 * @purpose Looks up the requested courses, notifying the user and
+	 * 		removing the course from the owner if one does not exist
+	 * 
+	 * @param String[] classes: the course keys to look up
+	 * @param Course[] possible: the array to fill with the courses
+	 * @param ThreadSynch sync: the sync object for the build
+	 * 
+	 * @return boolean: if every course was found
+	*********************************************************/
+	private boolean findCourses(String[] classes, Course[] possible, ThreadSynch sync){
+		for(int pos = beginIndex; pos < classes.length; pos++){
+			possible[pos] = this.database.get(classes[pos]);//add the course
+			
+			if(possible[pos] == null){				//check if the course exists
+				JOptionPane.showMessageDialog(sync.getOwner(), 
+					"Unable to create schedules for the selected classes because "  + classes[pos] + " does not exist.\n " +
+					"Building schedules without " + classes[pos] + ".", 
+					"Unable to Build Schedules", JOptionPane.ERROR_MESSAGE);
+				sync.getOwner().scheduleClassModel.removeElement(classes[pos]);
+				sync.getOwner().scheduleClassList.setModel(sync.getOwner().scheduleClassModel);
+				sync.failed = true;
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	
 	/********************************************************
 	 * @purpose returns the database's term
@@ -427,8 +755,18 @@ public class Database implements Serializable, Cloneable{
 	 * @purpose Forces the database to rerate all sections
 	*********************************************************/
 	public void reRate(){		
+		reRate(Main.prefs.getRatingContext());		//rerate with the current preferences
+	}
+	
+	
+	/********************************************************
+	 * @purpose Forces the database to rerate all sections
+	 * 
+	 * @param RatingContext context: the rating preferences
+	*********************************************************/
+	public void reRate(RatingContext context){
 		for(String key: this.database.keySet()){	//for each key
-			this.database.get(key).reRate();		//get the course and rerate
+			this.database.get(key).reRate(context);	//get the course and rerate
 		}
 	}
 
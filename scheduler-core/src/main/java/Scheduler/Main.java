@@ -29,8 +29,10 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.Properties;
@@ -132,7 +134,9 @@ public class Main {
 	protected static Preferences prefs;
 	protected static MainFrame master;
 	protected static ScheduledThreadPoolExecutor threadExec;
+	protected static ForkJoinPool forkJoin;
 	protected static TreeMap<String, Database> terms;
+	private static RatingContext ratedWith;			//the rating preferences of the last rerate
 	protected static boolean termChanged = false;
 	protected static ImageIcon icon;// = new ImageIcon(smLogo);
 	protected static ImageIcon xlIcon;// = new ImageIcon(logo);
@@ -207,6 +211,8 @@ public class Main {
 		threadExec.setKeepAliveTime(1500, TimeUnit.MILLISECONDS);
 		threadExec.allowCoreThreadTimeOut(true);
 		
+		forkJoin = new ForkJoinPool(availProcs);
+		
 		loader = Main.class.getClassLoader();
 		
 		initializePreferences();
@@ -521,20 +527,30 @@ public class Main {
 	
 	
 	/********************************************************
-	 * @purpose Rerate all of the stored databases and update schedules
+	 * @purpose Rerate the courses of the stored databases not yet rated
+	 * 		with the current preferences, and update the schedules of
+	 * 		the tabs whose database was replaced or rerated differently.
+	 * 		A new break score changes every schedule rating without
+	 * 		changing a section rating, so every tab is updated then
 	*********************************************************/
 	public static void reRateAll(){
-		for(String item: terms.keySet()){
-			terms.get(item).reRate();
+		RatingContext context = prefs.getRatingContext();//read the preferences once
+		Set<Database> changed = new RatingService(terms.values(), context).reRate(forkJoin);
+		
+		if(ratedWith == null || Double.compare(ratedWith.getBreakScore(), context.getBreakScore()) != 0){
+			for(Database term: terms.values()){	//every schedule is rated differently
+				if(term != null){
+					changed.add(term);
+				}
+			}
 		}
+		ratedWith = context;						//compare the next rerate with this one
 		
 		for(int pos = 0; pos < Main.master.tabControl.getTabCount(); pos++){//for each tab
 			Component comp = Main.master.tabControl.getComponentAt(pos);//get the component there
 			
 			try{
-				Tab item = (Tab)comp;
-				
-				item.setDatabase(terms.get(item.getDatabase().getTerm()), true, true);
+				updateTab((Tab)comp, changed);
 			}
 			catch(ClassCastException ex){}
 		}
@@ -543,11 +559,26 @@ public class Main {
 			Popup comp = (Popup)Main.master.detached.get(pos);//get the component there
 			
 			try{
-				Tab item = (Tab)comp.getComponent();
-				
-				item.setDatabase(terms.get(item.getDatabase().getTerm()), true, true);
+				updateTab((Tab)comp.getComponent(), changed);
 			}
 			catch(ClassCastException ex){}
 		}
 	}
+	
+	
+	/********************************************************
+	 * @purpose Gives the tab the stored database of its term if the
+	 * 		ratings it shows are out of date
+	 * 
+	 * @param Tab item: the tab to update
+	 * @param Set<Database> changed: the databases rerated differently
+	*********************************************************/
+	private static void updateTab(Tab item, Set<Database> changed){
+		Database shown = item.getDatabase();		//the database the tab shows
+		Database stored = terms.get(shown.getTerm());//the database of its term
+		
+		if(stored != shown || changed.contains(stored)){
+			item.setDatabase(stored, true, true);	//show and rebuild with the new ratings
+		}
+	}
 }
@@ -82,6 +82,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextField;
 import javax.swing.ListModel;
 import javax.swing.ListSelectionModel;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingConstants;
 import javax.swing.SwingWorker;
 import javax.swing.TransferHandler;
@@ -116,6 +117,9 @@ public class MakeSchedule extends JPanel implements Tab {
 	protected ArrayList<String> primary;			//list of primary courses
 	protected int selectedSchedule;					//item in the schedules list that is selected
 	protected LinkedCourses dependancy;				//the linked courses list for dependancies
+	protected long scheduleTotal;					//the schedules the last build counted, 0 if not counted
+	protected double scheduleCoverage = 1;			//the share of the last build searched before its deadline
+	protected SwingWorker<Long, Void> counting;		//the count of the courses not yet built, if any
 	
 	
 	/*********************************************************
@@ -1044,6 +1048,8 @@ public class MakeSchedule extends JPanel implements Tab {
 		String[] courses = new String[items.length];
 		Object[] temp;
 		
+		counting = null;							//the build shows its own count
+		
 		try {
 			int sectionsRequested = 0;
 			
@@ -1077,6 +1083,8 @@ public class MakeSchedule extends JPanel implements Tab {
 					use, this, !ignorePopups, CourseType.getCourseType(undergrad.isSelected(), gradCampus.isSelected(), gradDist.isSelected()), sectionSelections, numberSelections, reportingEnabled.isSelected());
 			}
 			else{
+				scheduleTotal = 0;
+				scheduleCoverage = 1;
 				schedulesModel = new DefaultListModel();
 				temp = new Object[1];
 				schedules.setListData(temp);
@@ -1102,10 +1110,84 @@ public class MakeSchedule extends JPanel implements Tab {
 			else if(item instanceof Conflict) conf++;
 		}
 		
-		scheduleCounter.setText(Integer.toString(sched));
+		if(scheduleTotal > sched){					//the rest were past the result limit, and not listed
+			scheduleCounter.setText(sched + " of " + scheduleTotal);
+		}
+		else{
+			scheduleCounter.setText(Integer.toString(sched));
+		}
+		
+		if(scheduleCoverage < 1){					//the build ran out of time
+			scheduleCounter.setText(scheduleCounter.getText() + " (" + (int)(100 * scheduleCoverage) + "% searched)");
+		}
 		conflictCounter.setText(Integer.toString(conf));
 	}
 	
+	
+	/********************************************************
+	 * @purpose Counts the schedules of the courses in the background,
+	 * 		without building them, and shows how many a refresh would
+	 * 		find next to the schedules still listed
+	 * 
+	 * @see Database.countSchedules
+	*********************************************************/
+	public void countSchedules(){
+		final String[] courses = new String[scheduleClassModel.size()];
+		final boolean[][] allowed = new boolean[courses.length][];
+		final int[] number = new int[courses.length];
+		final int use;
+		
+		if(courses.length == 0){					//nothing to count
+			counting = null;
+			return;
+		}
+		
+		for(int index = 0; index < courses.length; index++){
+			courses[index] = (String)scheduleClassModel.get(index);
+			allowed[index] = sectionSelections.get(courses[index]);
+			number[index] = numberSelections.get(courses[index]).intValue();
+		}
+		
+		try{
+			use = useAll.isSelected() ? courses.length : Math.min(courses.length, Integer.parseInt(minUse.getText()));
+		}
+		catch(NumberFormatException ex){
+			counting = null;						//counted once the minimum is fixed
+			return;
+		}
+		
+		final boolean allowClosed = useClosed.isSelected();
+		final ThreadSynch sync = new ThreadSynch();
+		sync.allowUpdate = true;
+		sync.setOwner(this);
+		sync.setPrimary(new ArrayList<String>(primary));
+		sync.setType(CourseType.getCourseType(undergrad.isSelected(), gradCampus.isSelected(), gradDist.isSelected()));
+		
+		counting = new SwingWorker<Long, Void>(){
+			@Override
+			public Long doInBackground(){
+				sync.setWatch(new ProgressMonitor(Main.master, "Counting Schedules: ", "Finding Courses", 0, 2));
+				return local.countSchedules(courses, allowClosed, use, sync, allowed, number);
+			}
+			
+			@Override
+			public void done(){
+				sync.closeWatch();
+				
+				try{
+					long total = get();
+					
+					if(counting == this && total >= 0 && !sync.failed){//not cancelled or replaced by a build
+						updateScheduleCount();
+						scheduleCounter.setText(scheduleCounter.getText() + " (" + total + " on refresh)");
+					}
+				}
+				catch(Exception ex){}				//leave the count of the last build
+			}
+		};
+		Main.threadExec.execute(counting);
+	}
+	
 	public void updateMasterCount(){
 		masterCounter.setText(Integer.toString(masterClassModel.getSize()));
 	}
@@ -1162,6 +1244,7 @@ public class MakeSchedule extends JPanel implements Tab {
 		}
 		else{
 			refreshSchedules.setForeground(Color.RED);
+			countSchedules();						//show what a refresh would find
 		}
 	}
 
@@ -2155,6 +2238,7 @@ public class MakeSchedule extends JPanel implements Tab {
 			}
 			else{
 				refreshSchedules.setForeground(Color.RED);
+				countSchedules();					//show what a refresh would find
 			}
 			
 			sectionList.setModel(sectionModel);
@@ -0,0 +1,216 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: NogoodCache.java
+ *
+ * Contains class:
+ *
+ * 		NogoodCache:
+ *
+ * 			Purpose: To keep the nogoods learned by the builds of a
+ * 				database for the builds after them
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the kept nogoods
+import java.util.Collections;						//for the identity sets
+import java.util.IdentityHashMap;					//for the matrix index of each section
+import java.util.List;								//for the nogoods of a build
+import java.util.Set;								//for the usable sections of a course
+
+
+/********************************************************
+ * Class NogoodCache
+ *
+ * @purpose Keeps the nogoods learned by the builds of a database. A
+ * 		user usually builds again after changing a few courses or
+ * 		options, so the sets that emptied a primary course last time
+ * 		are installed before the next search starts.
+ *
+ * 		A nogood is only installed when its reason still holds: its
+ * 		course is requested, required, takes at least as many sections,
+ * 		and may only use sections it could use when the nogood was
+ * 		learned. Sections are matched by identity, so a database that
+ * 		is replaced starts with an empty cache.
+********************************************************/
+public class NogoodCache {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700011L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the cache
+	********************************************************/
+	protected final static int maxNogoods = 4096;	//the most nogoods kept
+
+
+	/********************************************************
+	 * The following are private fields of the cache
+	********************************************************/
+	private final ArrayList<NogoodStore.Nogood> kept;//the nogoods of the earlier builds
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates an empty cache
+	********************************************************/
+	public NogoodCache(){
+		kept = new ArrayList<NogoodStore.Nogood>();
+	}
+
+
+	/********************************************************
+	 * @purpose Installs the kept nogoods whose reason still holds in
+	 * 		the store of a new build
+	 *
+	 * @param NogoodStore store: the store of the build
+	 * @param Course[] possible: the requested courses
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param CourseConstraints constraints: the constraints of the build
+	 * @param ConflictMatrix matrix: the conflict matrix of the build
+	 *
+	 * @return int: the number of nogoods installed
+	********************************************************/
+	public synchronized int restore(NogoodStore store, Course[] possible, int[] numberSelected, boolean[][] usable, CourseConstraints constraints, ConflictMatrix matrix){
+		if(kept.isEmpty()){
+			return 0;
+		}
+
+		IdentityHashMap<Section, Integer> indices = new IdentityHashMap<Section, Integer>();
+		for(int index = 0; index < matrix.size(); index++){
+			indices.put(matrix.getSection(index), index);
+		}
+
+		int restored = 0;
+
+		for(NogoodStore.Nogood nogood: kept){
+			int course = findCourse(possible, nogood.getRequired());
+
+			if(course < 0 || !constraints.isRequired(course) || numberSelected[course] < nogood.getNumber()){
+				continue;							//the course no longer has to be filled
+			}
+
+			if(!isWithin(course, usable[course], nogood.getDomain(), matrix)){
+				continue;							//the course may use a section it could not before
+			}
+
+			Section[] sections = nogood.getSections();
+			int[] members = new int[sections.length];
+			boolean present = true;
+
+			for(int pos = 0; pos < sections.length && present; pos++){
+				Integer index = indices.get(sections[pos]);
+				present = index != null;
+				members[pos] = present ? index : -1;
+			}
+
+			if(present && store.add(members, nogood)){
+				restored++;
+			}
+		}
+
+		return restored;
+	}
+
+
+	/********************************************************
+	 * @purpose Keeps the nogoods learned by a build, dropping the
+	 * 		oldest once the cache is full
+	 *
+	 * @param List<NogoodStore.Nogood> learned: the nogoods of the build
+	********************************************************/
+	public synchronized void save(List<NogoodStore.Nogood> learned){
+		Set<NogoodStore.Nogood> known = Collections.newSetFromMap(new IdentityHashMap<NogoodStore.Nogood, Boolean>());
+		known.addAll(kept);
+
+		for(NogoodStore.Nogood nogood: learned){
+			if(known.add(nogood)){					//restored nogoods are already kept
+				kept.add(nogood);
+			}
+		}
+
+		if(kept.size() > maxNogoods){
+			kept.subList(0, kept.size() - maxNogoods).clear();
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of nogoods kept
+	 *
+	 * @return int: the number of nogoods
+	********************************************************/
+	public synchronized int size(){
+		return kept.size();
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the index of the course in the requested courses
+	 *
+	 * @param Course[] possible: the requested courses
+	 * @param Course course: the course to find
+	 *
+	 * @return int: the index, or -1 if not requested
+	********************************************************/
+	private static int findCourse(Course[] possible, Course course){
+		for(int pos = 0; pos < possible.length; pos++){
+			if(possible[pos] == course){
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if every usable section of the course is one of
+	 * 		the sections it could use when the nogood was learned
+	 *
+	 * @param int course: the index of the course
+	 * @param boolean[] usable: if each section of the course is usable
+	 * @param Section[] domain: the sections it could use before
+	 * @param ConflictMatrix matrix: the conflict matrix of the build
+	 *
+	 * @return boolean: if the usable sections are within the domain
+	********************************************************/
+	private static boolean isWithin(int course, boolean[] usable, Section[] domain, ConflictMatrix matrix){
+		Set<Section> before = Collections.newSetFromMap(new IdentityHashMap<Section, Boolean>());
+		Collections.addAll(before, domain);
+
+		for(int index = 0; index < usable.length; index++){
+			if(usable[index] && !before.contains(matrix.getSection(matrix.index(course, index)))){
+				return false;
+			}
+		}
+		return true;
+	}
+}
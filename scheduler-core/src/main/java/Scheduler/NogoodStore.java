@@ -0,0 +1,300 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: NogoodStore.java
+ *
+ * Contains classes:
+ *
+ * 		NogoodStore:
+ *
+ * 			Purpose: To hold the sets of sections a build has learned
+ * 				cannot appear together, as extra conflict rows
+ *
+ * 		Nogood:
+ *
+ * 			Purpose: To record a learned set with the reason it holds,
+ * 				so that later builds can check it still does
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the learned sets
+import java.util.HashMap;							//for the rows of each pair
+import java.util.List;								//for returning the learned sets
+
+
+/********************************************************
+ * Class NogoodStore
+ *
+ * @purpose Holds the nogoods of one build: pairs and triples of sections
+ * 		that leave a required course too few compatible sections. A
+ * 		pair is kept as an extra conflict row of each of its sections,
+ * 		a triple as a row of the third section for each pair, so the
+ * 		search blocks the last section of a nogood when the others are
+ * 		on the branch, like any other conflict.
+ *
+ * 		Rows are replaced, never changed, so the search threads read
+ * 		them without locking; adding is synchronized.
+********************************************************/
+public class NogoodStore {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700010L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the store
+	********************************************************/
+	private final int size;							//the number of matrix sections
+	private final int words;						//longs per row
+	private volatile long[][] pairs;				//the learned conflicts of each section
+	private volatile HashMap<Long, long[]> triples;	//the sections blocked by each pair
+	private final ArrayList<Nogood> learned;		//the nogoods in the order learned
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates an empty store for the sections of the matrix
+	 *
+	 * @param ConflictMatrix matrix: the conflict matrix of the build
+	********************************************************/
+	public NogoodStore(ConflictMatrix matrix){
+		size = matrix.size();
+		words = matrix.getWords();
+		pairs = new long[size][];
+		triples = new HashMap<Long, long[]>();
+		learned = new ArrayList<Nogood>();
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the sections learned to conflict with a section
+	 *
+	 * @param int index: the matrix index of the section
+	 *
+	 * @return long[]: the row, or null if none
+	********************************************************/
+	public long[] getPairRow(int index){
+		return pairs[index];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if any triple has been learned
+	 *
+	 * @return boolean: if getTripleRow can return a row
+	********************************************************/
+	public boolean hasTriples(){
+		return !triples.isEmpty();
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the sections that cannot join two sections
+	 *
+	 * @param int first: the matrix index of a section
+	 * @param int second: the matrix index of another section
+	 *
+	 * @return long[]: the row, or null if none
+	********************************************************/
+	public long[] getTripleRow(int first, int second){
+		return triples.get(key(first, second));
+	}
+
+
+	/********************************************************
+	 * @purpose Adds a nogood if it is not already known
+	 *
+	 * @param int[] sections: the matrix indices, two or three
+	 * @param Nogood reason: the nogood to remember for later builds
+	 *
+	 * @return boolean: if the nogood was new
+	********************************************************/
+	public synchronized boolean add(int[] sections, Nogood reason){
+		if(sections.length == 2){
+			if(isSet(pairs[sections[0]], sections[1])){
+				return false;						//already known
+			}
+
+			long[][] next = pairs.clone();			//publish new rows only
+			next[sections[0]] = withBit(next[sections[0]], sections[1]);
+			next[sections[1]] = withBit(next[sections[1]], sections[0]);
+			pairs = next;
+		}
+		else if(sections.length == 3){
+			if(isSet(getTripleRow(sections[0], sections[1]), sections[2])){
+				return false;						//already known
+			}
+
+			HashMap<Long, long[]> next = new HashMap<Long, long[]>(triples);
+			for(int third = 0; third < 3; third++){	//block each section given the other two
+				long pair = key(sections[(third + 1) % 3], sections[(third + 2) % 3]);
+				next.put(pair, withBit(next.get(pair), sections[third]));
+			}
+			triples = next;
+		}
+		else{
+			return false;							//only pairs and triples are kept
+		}
+
+		learned.add(reason);
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the nogoods learned so far
+	 *
+	 * @return List<Nogood>: a copy of the learned nogoods
+	********************************************************/
+	public synchronized List<Nogood> getLearned(){
+		return new ArrayList<Nogood>(learned);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the key of an unordered pair of sections
+	 *
+	 * @param int first: the matrix index of a section
+	 * @param int second: the matrix index of another section
+	 *
+	 * @return Long: the key
+	********************************************************/
+	private Long key(int first, int second){
+		return (long)Math.min(first, second) * size + Math.max(first, second);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the bit of the section is set in the row
+	 *
+	 * @param long[] row: the row, or null
+	 * @param int index: the matrix index of the section
+	 *
+	 * @return boolean: if the bit is set
+	********************************************************/
+	private static boolean isSet(long[] row, int index){
+		return row != null && (row[index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns a copy of the row with the section's bit set
+	 *
+	 * @param long[] row: the row, or null for an empty row
+	 * @param int index: the matrix index of the section
+	 *
+	 * @return long[]: the new row
+	********************************************************/
+	private long[] withBit(long[] row, int index){
+		long[] copy = (row == null) ? new long[words] : row.clone();
+		copy[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+		return copy;
+	}
+
+
+	/********************************************************
+	 * Class Nogood
+	 *
+	 * @purpose A set of sections that leave a required course fewer
+	 * 		than number compatible sections out of domain. It holds in
+	 * 		any build on the same database where the course is still
+	 * 		required, takes at least number sections, and may only use
+	 * 		sections of domain.
+	********************************************************/
+	public static class Nogood {
+
+
+		/********************************************************
+		 * The following are private fields of the nogood
+		********************************************************/
+		private final Section[] sections;			//the sections that cannot appear together
+		private final Course required;				//the course they leave short
+		private final Section[] domain;				//the usable sections of the course
+		private final int number;					//the sections the course took
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a nogood and its reason
+		 *
+		 * @param Section[] sections: the sections that cannot appear together
+		 * @param Course required: the course they leave short
+		 * @param Section[] domain: the usable sections of the course
+		 * @param int number: the sections the course took
+		********************************************************/
+		public Nogood(Section[] sections, Course required, Section[] domain, int number){
+			this.sections = sections;				//set the sections
+			this.required = required;				//set the course
+			this.domain = domain;					//set the usable sections
+			this.number = number;					//set the number taken
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the sections that cannot appear together
+		 *
+		 * @return Section[]: the sections
+		********************************************************/
+		public Section[] getSections(){
+			return sections;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the course the sections leave short
+		 *
+		 * @return Course: the required course
+		********************************************************/
+		public Course getRequired(){
+			return required;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the usable sections of the course when the
+		 * 		nogood was learned
+		 *
+		 * @return Section[]: the sections
+		********************************************************/
+		public Section[] getDomain(){
+			return domain;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the number of sections the course took
+		 *
+		 * @return int: the number of sections
+		********************************************************/
+		public int getNumber(){
+			return number;
+		}
+	}
+}
@@ -114,6 +114,20 @@ public class OptionsFrame extends JFrame {
 	protected JTextField newDist;			//to input new distance course download url
 	
 	
+	/*********************************************************
+	 * The following are the protected fields for the schedules tab
+	********************************************************/
+	protected JPanel settingsSchedules;		//schedule build settings panel
+	protected GroupLayout schedulesTabLayout;//group layout for schedule building
+	protected JCheckBox enableSearch;		//to enable the backtracking search
+	protected JCheckBox enableSample;		//to sample schedules instead of building them all
+	protected JCheckBox diverseSample;		//to sample schedules that differ the most
+	protected JLabel resultLimitLbl;		//labels the result limit field
+	protected JFormattedTextField resultLimit;//the number of best schedules kept
+	protected JLabel timeLimitLbl;			//labels the time limit field
+	protected JFormattedTextField timeLimit;//the milliseconds a search build may take
+	
+	
 	/*********************************************************
 	 * The following are the protected fields for the button portion
 	********************************************************/
@@ -188,6 +202,41 @@ public class OptionsFrame extends JFrame {
 		ratingsTabLayout = new GroupLayout(settingsRatings);//create the layout
 		settingsRatings.setLayout(ratingsTabLayout);//set the layout
 		
+		settingsSchedules = new JPanel();		//create the panel
+		schedulesTabLayout = new GroupLayout(settingsSchedules);//create the layout
+		settingsSchedules.setLayout(schedulesTabLayout);//set the layout
+		
+		enableSearch = new JCheckBox("Enable Backtracking Schedule Search");//create the checkbox
+		enableSearch.setMnemonic('B');			//set the mnemonic
+		enableSearch.setToolTipText("Build schedules by searching course by course " +
+			"instead of testing every combination. Conflict reporting always tests every combination.");//set the tool tip
+		
+		enableSample = new JCheckBox("Sample Schedules Instead of Building All");//create the checkbox
+		enableSample.setMnemonic('S');			//set the mnemonic
+		enableSample.setToolTipText("Draw schedules at random instead of building every schedule, " +
+			"as many as the best schedules kept or " + Database.sampleSize + " if that is 0. Only used by the search.");//set the tool tip
+		
+		diverseSample = new JCheckBox("Sample Schedules That Differ the Most");//create the checkbox
+		diverseSample.setMnemonic('D');			//set the mnemonic
+		diverseSample.setToolTipText("Pick sampled schedules that differ the most in their sections " +
+			"and meeting times instead of drawing them uniformly.");//set the tool tip
+		
+		resultLimitLbl = new JLabel("Best Schedules Kept: ");//create the text label
+		resultLimit = new JFormattedTextField(new NumberFormatter(new DecimalFormat("0")));//create the text field
+		resultLimit.setColumns(6);				//set the min size
+		resultLimit.setToolTipText("Only keep this many of the best rated schedules from a build, " +
+			"which limits the memory used by large builds. Use 0 to keep every schedule.");//set the tool tip
+		resultLimitLbl.setToolTipText(resultLimit.getToolTipText());//set tool tip
+		resultLimit.addFocusListener(focus);	//add form's focus listener
+		
+		timeLimitLbl = new JLabel("Build Time Limit (ms): ");//create the text label
+		timeLimit = new JFormattedTextField(new NumberFormatter(new DecimalFormat("0")));//create the text field
+		timeLimit.setColumns(6);				//set the min size
+		timeLimit.setToolTipText("Stop a search build after this many milliseconds and show the best " +
+			"schedules found so far. Use 0 to always finish the build.");//set the tool tip
+		timeLimitLbl.setToolTipText(timeLimit.getToolTipText());//set tool tip
+		timeLimit.addFocusListener(focus);		//add form's focus listener
+		
 		//no longer relevant
 		enableUGrad = new JCheckBox("Enable Undergraduate Courses");//create the checkbox
 		enableUGrad.addActionListener(chkBox);	//add the listener
@@ -366,9 +415,55 @@ public class OptionsFrame extends JFrame {
 			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
 		);
 		
+		schedulesTabLayout.setHorizontalGroup(schedulesTabLayout.createParallelGroup()
+			.addGroup(schedulesTabLayout.createSequentialGroup()//first sequential group parallel to the others
+				.addGap(2 * horizSpace)			//add twice the horiz space
+				.addComponent(enableSearch)		//add the search enable check box
+			)
+			.addGroup(schedulesTabLayout.createSequentialGroup()//sample sequential group
+				.addGap(2 * horizSpace)			//add twice the horiz space
+				.addComponent(enableSample)		//add the sample enable check box
+			)
+			.addGroup(schedulesTabLayout.createSequentialGroup()//diverse sample sequential group
+				.addGap(4 * horizSpace)			//indent under the sample check box
+				.addComponent(diverseSample)	//add the diverse sample check box
+			)
+			.addGroup(schedulesTabLayout.createSequentialGroup()//second sequential group
+				.addGap(2 * horizSpace)			//add twice the horiz space
+				.addComponent(resultLimitLbl)	//add the result limit label
+				.addComponent(resultLimit, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
+			)
+			.addGroup(schedulesTabLayout.createSequentialGroup()//third sequential group
+				.addGap(2 * horizSpace)			//add twice the horiz space
+				.addComponent(timeLimitLbl)		//add the time limit label
+				.addComponent(timeLimit, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
+			)
+		);
+		
+		schedulesTabLayout.setVerticalGroup(schedulesTabLayout.createSequentialGroup()
+			.addGap(2 * horizSpace)				//add gap before next sequential item
+			.addComponent(enableSearch)			//add the enable search check box, own row
+			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
+			.addComponent(enableSample)			//add the enable sample check box, own row
+			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
+			.addComponent(diverseSample)		//add the diverse sample check box, own row
+			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
+			.addGroup(schedulesTabLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+				.addComponent(resultLimitLbl)	//add the result limit label
+				.addComponent(resultLimit, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
+			)
+			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
+			.addGroup(schedulesTabLayout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+				.addComponent(timeLimitLbl)		//add the time limit label
+				.addComponent(timeLimit, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE, GroupLayout.PREFERRED_SIZE)
+			)
+			.addGap((int)(1.5 * horizSpace))	//add a gap of floor(1.5 * horizSpace) before next row
+		);
+		
 		mainTabs = new JTabbedPane();			//create tabbed pane
 		mainTabs.addTab("General", settingsMain);//add general tab
 		mainTabs.addTab("Ratings", settingsRatings);//add ratings tab
+		mainTabs.addTab("Schedules", settingsSchedules);//add schedules tab
 		
 		add(mainTabs, BorderLayout.CENTER);		//put the settings main panel in the frame
 		add(buttonPanel, BorderLayout.SOUTH);	//put the buttons in the pane
@@ -430,6 +525,12 @@ public class OptionsFrame extends JFrame {
 		
 		enableRMPRatings.setSelected(prefs.isRateMyProfessorEnabled());//set the rmp enable checkbox
 		
+		enableSearch.setSelected(prefs.isSearchEnabled());//set the search enable checkbox
+		enableSample.setSelected(prefs.isSampleEnabled());//set the sample enable checkbox
+		diverseSample.setSelected(prefs.isSampleDiverse());//set the diverse sample checkbox
+		resultLimit.setText(Integer.toString(prefs.getResultLimit()));//set the result limit text
+		timeLimit.setText(Integer.toString(prefs.getTimeLimit()));//set the time limit text
+		
 		boolean off = prefs.hasDayOff();		//make bool array for the selected day off
 		dayOff.setSelected(off);				//set checkbox status
 		
@@ -859,6 +960,48 @@ public class OptionsFrame extends JFrame {
 					max = 480;						//set back to default
 				}
 				
+				int limit = 0;					//create and initialize the result limit
+				
+				try{							//try to catch exceptions
+					limit = Integer.parseInt(resultLimit.getText().trim());//get the result limit
+					
+					if(limit < 0){				//check for bounds errors
+						throw new Exception();	//throw exception if invalid
+					}
+				}
+				catch(Exception ex){			//if invalid input
+					JOptionPane.showMessageDialog(//show invalid input dialog
+						Main.master.mainMenu.optionsFrame, 
+						"Invalid value for the number of best schedules kept.", 
+						"Invalid Entry", JOptionPane.ERROR_MESSAGE);
+					if (cont){					//check if focus should be set
+						resultLimit.requestFocusInWindow();//set the focus to the result limit
+					}
+
+					cont = false;				//set continuation to false
+				}
+
+				int millis = 0;					//create and initialize the time limit
+
+				try{							//try to catch exceptions
+					millis = Integer.parseInt(timeLimit.getText().trim());//get the time limit
+
+					if(millis < 0){				//check for bounds errors
+						throw new Exception();	//throw exception if invalid
+					}
+				}
+				catch(Exception ex){			//if invalid input
+					JOptionPane.showMessageDialog(//show invalid input dialog
+						Main.master.mainMenu.optionsFrame,
+						"Invalid value for the build time limit.",
+						"Invalid Entry", JOptionPane.ERROR_MESSAGE);
+					if (cont){					//check if focus should be set
+						timeLimit.requestFocusInWindow();//set the focus to the time limit
+					}
+
+					cont = false;				//set continuation to false
+				}
+				
 				if(!(enableUGrad.isSelected() || enableCampusGrad.isSelected() || enableDistGrad.isSelected())){
 					cont = false;
 					JOptionPane.showMessageDialog(Main.master.mainMenu.optionsFrame, 
@@ -901,6 +1044,12 @@ public class OptionsFrame extends JFrame {
 					
 					prefs.setPreferred(preferred);	//set the preferred period
 					
+					prefs.setSearchEnabled(enableSearch.isSelected());//set if the search is used
+					prefs.setSampleEnabled(enableSample.isSelected());//set if schedules are sampled
+					prefs.setSampleDiverse(diverseSample.isSelected());//set if the sample is diverse
+					prefs.setResultLimit(limit);	//set the number of schedules kept
+					prefs.setTimeLimit(millis);		//set the time a build may take
+					
 					updateSettingsFrame();			//update the settings frame
 					
 					if(Main.prefs.save()){			//try saving and if successful
@@ -656,11 +656,7 @@ public enum Parser {
 		Prof staff = new Prof();						//create new prof for STAFF entries
 		profs.addIfNew(staff);							//add the STAFF professor to the list if new
 		
-		while(sync.hasLivingHelpers()){					//wait until all threads finished
-			if(sync.isCanceled()){						//check if user cancelled
-				sync.cancel();							//cancel the operation
-			}
-		}					
+		sync.awaitHelpers();							//block until all threads finished or cancelled
 		
 		parseRMPFixFile(profs);							//fix the RMP database
 		return profs;									//return the list
@@ -46,7 +46,10 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;					//to declare as serializeable
 import java.util.Calendar;						//to get date information
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;		//for numbering the rating contexts
 import java.util.prefs.BackingStoreException;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
 
 
 import com.google.inject.Inject;
@@ -57,8 +60,9 @@ import com.google.inject.Inject;
  * 		scheduler
  * 
  * @see Serializable
+ * @see PreferenceChangeListener
 ********************************************************/
-public class Preferences implements Serializable {
+public class Preferences implements Serializable, PreferenceChangeListener {
 	
 	private static java.util.prefs.Preferences newPreferences;
 	
@@ -102,6 +106,11 @@ public class Preferences implements Serializable {
 	
 	private transient String currentTerm;		//current term identifier, non-serializable
 	
+	private transient volatile RatingContext ratingContext;//the rating preferences, null until read
+	private transient RatingContext lastContext;	//the rating preferences last read
+	
+	private static final AtomicLong ratingGeneration = new AtomicLong();//the generation of the last context
+	
 	@Inject
 	private PreferencesFactory prefFact;
 	
@@ -148,6 +157,7 @@ public class Preferences implements Serializable {
 	 */
 	public void migrate(){
 		newPreferences = prefFact.getUserNode("legacy");
+		newPreferences.addPreferenceChangeListener(this);
 		try {
 			if(newPreferences.get("migrateDate", null) == null){
 				this.setRatingsEnabled(ratingsEnabled);
@@ -225,6 +235,7 @@ public class Preferences implements Serializable {
 	********************************************************/
 	public void setRateMyProfessorEnabled(boolean rateMyProfessorEnabled) {
 		newPreferences.putBoolean("rateMyProfessorEnabled", rateMyProfessorEnabled);//set RMP ratings status
+		dropRatingContext();						//rate with the new value
 	}
 
 
@@ -245,6 +256,7 @@ public class Preferences implements Serializable {
 	********************************************************/
 	public void setPreferred(Period preferred) {
 		newPreferences.put("preferred", preferred.toString());				//set the period
+		dropRatingContext();						//rate with the new value
 	}
 
 
@@ -266,6 +278,7 @@ public class Preferences implements Serializable {
 	public void setLongestBreakPer(Period longestBreakPer) {
 		newPreferences.put("longestBreakPer", longestBreakPer.toString());//set the period
 		newPreferences.putDouble("longestBreak",longestBreakPer.getDurationMin());//set the duration
+		dropRatingContext();						//rate with the new value
 	}
 
 
@@ -287,6 +300,7 @@ public class Preferences implements Serializable {
 	public void setShortestBreakPer(Period shortestBreakPer) {
 		newPreferences.put("shortestBreakPer", shortestBreakPer.toString());//set the period
 		newPreferences.putDouble("shortestBreak",shortestBreakPer.getDurationMin());//set the duration
+		dropRatingContext();						//rate with the new value
 	}
 
 	
@@ -307,6 +321,7 @@ public class Preferences implements Serializable {
 	********************************************************/
 	public void setDayOff(boolean dayOff) {
 		newPreferences.putBoolean("dayOff", dayOff);				//set the day off ratings status
+		dropRatingContext();						//rate with the new value
 	}	
 
 
@@ -320,6 +335,62 @@ public class Preferences implements Serializable {
 	}
 
 
+	/*********************************************************
+	 * @purpose Returns the rating preferences as one snapshot, read
+	 * 		again only after a rating preference changes. Each new
+	 * 		snapshot is given the next generation, so a rating made
+	 * 		with an older one is known to be stale. The options apply
+	 * 		every rating preference, changed or not, so a snapshot that
+	 * 		rates like the last one is replaced by the last one
+	 * 
+	 * @return RatingContext: the current rating preferences
+	********************************************************/
+	public RatingContext getRatingContext() {
+		RatingContext context = ratingContext;	//read the field once
+		
+		if(context != null){					//still current
+			return context;
+		}
+		
+		synchronized(this){						//a change waits for the read to finish
+			if(ratingContext == null){			//read the preferences again
+				RatingContext read = new RatingContext(this, ratingGeneration.incrementAndGet());
+				
+				ratingContext = read.ratesLike(lastContext) ? lastContext : read;
+				lastContext = ratingContext;	//keep its generation if nothing changed
+			}
+			return ratingContext;
+		}
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Drops the rating preferences snapshot after a rating
+	 * 		preference changed
+	********************************************************/
+	private synchronized void dropRatingContext() {
+		ratingContext = null;					//read again on next use
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Drops the rating preferences snapshot when a rating
+	 * 		preference is changed in the backing store
+	 * 
+	 * @param PreferenceChangeEvent evt: the changed preference
+	********************************************************/
+	@Override
+	public void preferenceChange(PreferenceChangeEvent evt) {
+		String key = evt.getKey();				//get the changed key
+		
+		if(key.equals("preferred") || key.equals("dayOff") || 
+				key.equals("longestBreak") || key.equals("shortestBreak") ||
+				key.equals("rateMyProfessorEnabled")){
+			dropRatingContext();				//rate with the new value
+		}
+	}
+	
+	
 	/*********************************************************
 	 * @purpose sets the preferred days off 
 	 * 
@@ -328,6 +399,7 @@ public class Preferences implements Serializable {
 	********************************************************/
 	public void setDaysOff(boolean[] daysOff) {
 		this.daysOff = daysOff;				//TODO set days off
+		dropRatingContext();				//rate with the new value
 	}
 
 
@@ -622,6 +694,111 @@ public class Preferences implements Serializable {
 	}
 
 
+	/*********************************************************
+	 * @purpose Return if schedules should be built by the backtracking
+	 * 		search instead of the grey code enumeration
+	 * 
+	 * @return boolean: if the backtracking search is used
+	********************************************************/
+	public boolean isSearchEnabled() {
+		return newPreferences.getBoolean("searchEnabled", true);		//return if the search is used
+	}
+
+
+	/*********************************************************
+	 * @purpose Set if schedules should be built by the backtracking search
+	 * 
+	 * @param boolean searchEnabled: if the backtracking search is used
+	********************************************************/
+	public void setSearchEnabled(boolean searchEnabled) {
+		newPreferences.putBoolean("searchEnabled", searchEnabled);		//set if the search is used
+	}
+
+
+	/*********************************************************
+	 * @purpose Return if a search build should draw schedules at random
+	 * 		instead of building every schedule
+	 * 
+	 * @return boolean: if schedules are sampled
+	********************************************************/
+	public boolean isSampleEnabled() {
+		return newPreferences.getBoolean("sampleEnabled", false);		//return if schedules are sampled
+	}
+
+
+	/*********************************************************
+	 * @purpose Set if a search build should draw schedules at random
+	 * 
+	 * @param boolean sampleEnabled: if schedules are sampled
+	********************************************************/
+	public void setSampleEnabled(boolean sampleEnabled) {
+		newPreferences.putBoolean("sampleEnabled", sampleEnabled);		//set if schedules are sampled
+	}
+
+
+	/*********************************************************
+	 * @purpose Return if sampled schedules should differ as much as
+	 * 		possible instead of being drawn uniformly
+	 * 
+	 * @return boolean: if the sample is diverse
+	********************************************************/
+	public boolean isSampleDiverse() {
+		return newPreferences.getBoolean("sampleDiverse", false);		//return if the sample is diverse
+	}
+
+
+	/*********************************************************
+	 * @purpose Set if sampled schedules should differ as much as possible
+	 * 
+	 * @param boolean sampleDiverse: if the sample is diverse
+	********************************************************/
+	public void setSampleDiverse(boolean sampleDiverse) {
+		newPreferences.putBoolean("sampleDiverse", sampleDiverse);		//set if the sample is diverse
+	}
+
+
+	/*********************************************************
+	 * @purpose Return the number of best schedules kept by a build
+	 * 
+	 * @return int: the number of schedules kept, 0 to keep every schedule
+	********************************************************/
+	public int getResultLimit() {
+		return newPreferences.getInt("resultLimit", 0);				//return the result limit
+	}
+
+
+	/*********************************************************
+	 * @purpose Set the number of best schedules kept by a build
+	 * 
+	 * @param int resultLimit: the number of schedules kept, 0 to keep every schedule
+	********************************************************/
+	public void setResultLimit(int resultLimit) {
+		newPreferences.putInt("resultLimit", resultLimit);			//set the result limit
+	}
+
+
+	/*********************************************************
+	 * @purpose Return the time a search build may take before it stops
+	 * 		with the best schedules found so far
+	 * 
+	 * @return int: the time limit in milliseconds, 0 for no limit
+	********************************************************/
+	public int getTimeLimit() {
+		return newPreferences.getInt("timeLimit", 0);				//return the time limit
+	}
+
+
+	/*********************************************************
+	 * @purpose Set the time a search build may take before it stops
+	 * 		with the best schedules found so far
+	 * 
+	 * @param int timeLimit: the time limit in milliseconds, 0 for no limit
+	********************************************************/
+	public void setTimeLimit(int timeLimit) {
+		newPreferences.putInt("timeLimit", timeLimit);				//set the time limit
+	}
+
+
 	/*********************************************************
 	 * @purpose Return if on campus graduate courses should be downloaded
 	 * 
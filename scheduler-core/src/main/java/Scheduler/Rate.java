@@ -55,6 +55,7 @@ public class Rate {
 	private final static int scale = 2;				//scaling factor
 	private final static int base = 15;				//base value
 	private final static int percent = 100;			//percentage
+	private final static double measuredWait = 0;	//the length every break is scored as, see breakScore
 	
 	
 	/********************************************************
@@ -64,44 +65,63 @@ public class Rate {
 	
 	
 	/*********************************************************
-	 * @purpose Rerates a given section
+	 * @purpose Rerates a given section. A meeting is scored by its
+	 * 		ends: both within the preferred hours is the max, neither is
+	 * 		the min, and only a meeting with one end within is measured.
+	 * 		When the section's meetings are in its WeekMask the ends are
+	 * 		looked up in the minute table of the context, and the days
+	 * 		off are counted from the day bits.
 	 * 
 	 * @param Section item: the section to reRate
+	 * @param RatingContext context: the rating preferences
 	*********************************************************/
-	public static void reRate(Section item){
-		Preferences prefs = Main.prefs;				//get the preferences
-		
+	public static void reRate(Section item, RatingContext context){
 		double rating;								//create a double for the rating
+		WeekMask mask = item.getWeekMask();			//get the meeting minutes and days
+		boolean tabled = mask.isRegular() && context.hasMinuteTable();
 		
-		if (prefs.getPreferred().contains(item.getPeriodPer())){//check if section is in the preferred class hours
+		if (tabled){								//look up the ends of the meeting
+			rating = periodScore(item.getPeriodPer(), mask, 0, context);
+		}
+		else if (context.isPreferred(item.getPeriodPer())){//check if section is in the preferred class hours
 			rating = max;							//set to max value
 		}
 		else{										//otherwise get the percent outside of the preferred hours
-			rating = max - item.getPeriodPer().percentOutside(prefs.getPreferred()); 
+			rating = max - context.percentOutside(item.getPeriodPer()); 
 		}											//and find the complement percent
 		
 		if(item.hasSecondary()){
-			if (prefs.getPreferred().contains(item.getSecPeriodPer())){//check if section is in the preferred class hours
+			if (tabled){							//look up the ends of the meeting
+				rating = periodScore(item.getSecPeriodPer(), mask, 1, context);
+			}
+			else if (context.isPreferred(item.getSecPeriodPer())){//check if section is in the preferred class hours
 				rating = max;						//set to max value
 			}
 			else{									//otherwise get the percent outside of the preferred hours
-				rating = max - item.getSecPeriodPer().percentOutside(prefs.getPreferred()); 
+				rating = max - context.percentOutside(item.getSecPeriodPer()); 
 			}
 		}
 		
-		if (prefs.hasDayOff()){						//check if day off was specified
-			boolean[] itemDays = item.getDaysBool();//get the sections days
-			rating *= Day.values().length;			//scale by number of days
+		if (context.hasDayOff()){					//check if day off was specified
+			int days = Day.values().length;			//the number of days
+			rating *= days;							//scale by number of days
 			
-			for(Day count : Day.values()){			//for each day
-				rating += (prefs.getDaysOff()[count.value()] && //if the day is preferred off
-							itemDays[count.value()] ? min : max);//and has class set to min
-			}										//else set to max
+			if (mask.getPrimaryDays() >= 0){		//the days with class that are preferred off are min
+				rating += (days - context.countDaysOff(mask.getPrimaryDays())) * max;
+			}
+			else{
+				boolean[] itemDays = item.getDaysBool();//get the sections days
+				
+				for(Day count : Day.values()){		//for each day
+					rating += (context.isDayOff(count.value()) && //if the day is preferred off
+								itemDays[count.value()] ? min : max);//and has class set to min
+				}									//else set to max
+			}
 			
-			rating /= (Day.values().length * scale);//average the scores again
+			rating /= (days * scale);				//average the scores again
 		}
 		
-		if (prefs.isRateMyProfessorEnabled()){			//check if rate my professor ratings enabled
+		if (context.isRateMyProfessorEnabled()){	//check if rate my professor ratings enabled
 			rating += item.getInstructor().getRating();//get instructor rating and add to rating
 			rating /= scale;						//re average
 		}
@@ -111,18 +131,108 @@ public class Rate {
 		
 	
 	/*********************************************************
-	 * @purpose Rerate a schedule object
+	 * @purpose Scores a meeting with the minute table, the same score
+	 * 		as the preferred period comparisons give it
+	 * 
+	 * @param Period period: the meeting
+	 * @param WeekMask mask: the regular mask of the section
+	 * @param int meeting: the index of the meeting in the mask
+	 * @param RatingContext context: the rating preferences
+	 * 
+	 * @return double: the score of the meeting
+	*********************************************************/
+	private static double periodScore(Period period, WeekMask mask, int meeting, RatingContext context){
+		boolean start = context.isPreferredMinute(mask.getStart(meeting));
+		boolean end = context.isPreferredMinute(mask.getEnd(meeting));
+		
+		if (start && end){							//within the preferred hours
+			return max;
+		}
+		if (start || end){							//partly outside, measure it
+			return max - context.percentOutside(period);
+		}
+		return max - percent;						//entirely outside
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Rerate a schedule object. The sections are summed in
+	 * 		order, then every break between two sections meeting on
+	 * 		the same day adds the same score, so the breaks are only
+	 * 		counted: a day with n timed sections has n - 1 of them, as
+	 * 		the TBA sections sort before the rest. The order is only
+	 * 		needed when a TBA section ties with a section starting at
+	 * 		midnight.
 	 * 
 	 * @param Schedule item: the schedule to re rate
+	 * @param RatingContext context: the rating preferences
 	*********************************************************/
-	public static void reRate(Schedule item){
+	public static void reRate(Schedule item, RatingContext context){
 		double rating = min;					//create and initialize to 0 the rating
 		int numGaps = min;						//initialize the numberof gaps to 0
 		ArrayList<Section> courses = item.getClassesObj();//get list of sections for schedule
 		int num = courses.size();				//get num of sections
-		Preferences prefs = Main.prefs;			//get prefs from main
-		double prefWaitMin = prefs.getShortestBreak();//get the shortest break period
-		double prefWaitMax = prefs.getLongestBreak();//get the longest break period
+		double gap = context.getBreakScore();	//every break scores the same
+		
+		for(int pos = 0; pos < num; pos++){		//for each section in the schedule
+			rating += courses.get(pos).getRating();//sum their ratings
+		}
+		
+		for(int day = 0; day < WeekMask.days; day++){//for each day of the week
+			int timed = 0;						//the sections with a time meeting that day
+			boolean untimed = false;			//if a TBA section meets that day
+			boolean tied = false;				//if the order of the TBA sections is unknown
+			
+			for(int pos = 0; pos < num; pos++){
+				WeekMask mask = courses.get(pos).getWeekMask();
+				
+				if(mask.getPrimaryDays() < 0){	//let the ordered rating fail the same way
+					reRateOrdered(item, context);
+					return;
+				}
+				
+				if((mask.getPrimaryDays() & (1 << day)) != 0){
+					if(mask.isListed()){
+						timed++;
+						tied |= mask.startsAtMidnight();
+					}
+					else{
+						untimed = true;
+						tied |= !mask.startsAtMidnight();
+					}
+				}
+			}
+			
+			if(untimed && tied){				//the breaks depend on the order
+				reRateOrdered(item, context);
+				return;
+			}
+			numGaps += Math.max(0, timed - 1);	//the breaks between the timed sections
+		}
+		
+		for(int count = 0; count < numGaps; count++){
+			rating += gap;						//score each break, in the same order
+		}
+		
+		rating /= (numGaps + num);				//re-average the rating
+		item.setRating(rating);					//set rating
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Rerate a schedule by ordering the sections of each day
+	 * 		and scoring each break between them
+	 * 
+	 * @param Schedule item: the schedule to re rate
+	 * @param RatingContext context: the rating preferences
+	*********************************************************/
+	private static void reRateOrdered(Schedule item, RatingContext context){
+		double rating = min;					//create and initialize to 0 the rating
+		int numGaps = min;						//initialize the numberof gaps to 0
+		ArrayList<Section> courses = item.getClassesObj();//get list of sections for schedule
+		int num = courses.size();				//get num of sections
+		double prefWaitMin = context.getShortestBreak();//get the shortest break period
+		double prefWaitMax = context.getLongestBreak();//get the longest break period
 		
 		for (Section section: courses){			//for each section in the schedule
 			rating += section.getRating();		//sum their ratings
@@ -144,36 +254,8 @@ public class Rate {
 				
 				while (second != null){			//if items pulled were good
 					if(!first.getPeriodStr().equals("TBA") && !second.getPeriodStr().equals("TBA")){
-						Time endFirst = first.getPeriodPer().getEndTime().clone();
-						Time startSecond = second.getPeriodPer().getStartTime().clone();
-													//get times that are the start and end of the break
-						
-						String time = new String(endFirst.toString() +//make new period string
-								"-" + startSecond.toString() + 
-								(startSecond.getAm() ? "am" : "pm"));
-						
-						Period gap = new Period(time);//create a pag period from that string
-						
-						Time diff = gap.getStartTime().timeDifference(gap.getEndTime());
-						double wait = Time.toMinutes(diff.toString());
-													//get the duration of the gap
-						if (wait > prefWaitMin && wait < prefWaitMax){//check gap length
-							rating += max;			//if good length, add max
-							numGaps++;				//increase gaps
-						}
-						else if(wait > prefWaitMax){//if long gap
-							wait -= prefWaitMax;	//find wait length extra
-							wait /= prefWaitMax;	//find percent as decimal
-							wait = max - (wait * percent);//find percent composite
-							rating += wait;			//add to rating
-							numGaps++;				//increase number of gaps
-						}
-						else{						//if short gap
-							wait /= prefWaitMin;	//find decimal percent
-							wait *= percent;		//find percent
-							rating += wait;			//add to rating
-							numGaps++;				//increase number of gaps
-						}
+						rating += breakScore(prefWaitMin, prefWaitMax);//score the break between them
+						numGaps++;					//increase number of gaps
 					}	
 					first = second;				//move second to first
 					second = ordered.poll();	//get next item as second
@@ -185,4 +267,48 @@ public class Rate {
 		rating /= (numGaps + num);				//re-average the rating
 		item.setRating(rating);					//set rating
 	}
+	
+	
+	/*********************************************************
+	 * @purpose Returns the score every break between two sections is
+	 * 		given under the break preferences, as used by reRate(Schedule).
+	 * 		The break was measured by parsing "end-startam" as a Period,
+	 * 		which needs " - " between the times, so the parse always
+	 * 		failed and every break measured 0 minutes. That length is kept
+	 * 		so ratings do not change; the times are no longer formatted
+	 * 		and parsed to find it.
+	 * 
+	 * @param double prefWaitMin: the shortest preferred break
+	 * @param double prefWaitMax: the longest preferred break
+	 * 
+	 * @return double: the score of a break
+	*********************************************************/
+	protected static double breakScore(double prefWaitMin, double prefWaitMax){
+		return gapScore(measuredWait, prefWaitMin, prefWaitMax);
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Scores a break of the specified length
+	 * 
+	 * @param double wait: the length of the break in minutes
+	 * @param double prefWaitMin: the shortest preferred break
+	 * @param double prefWaitMax: the longest preferred break
+	 * 
+	 * @return double: the score of the break
+	*********************************************************/
+	public static double gapScore(double wait, double prefWaitMin, double prefWaitMax){
+		if (wait > prefWaitMin && wait < prefWaitMax){//check gap length
+			return max;						//if good length, add max
+		}
+		else if(wait > prefWaitMax){		//if long gap
+			wait -= prefWaitMax;			//find wait length extra
+			wait /= prefWaitMax;			//find percent as decimal
+			return max - (wait * percent);	//find percent composite
+		}
+		else{								//if short gap
+			wait /= prefWaitMin;			//find decimal percent
+			return wait * percent;			//find percent
+		}
+	}
 }
@@ -0,0 +1,361 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: RatingBound.java
+ *
+ * Contains class:
+ *
+ * 		RatingBound:
+ *
+ * 			Purpose: To compute an optimistic bound on the rating of
+ * 				any schedule that extends a partial schedule
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the course sections
+import java.util.Arrays;							//for sorting ratings and courses
+import java.util.Comparator;						//for ordering the optional courses
+
+
+/********************************************************
+ * Class RatingBound
+ *
+ * @purpose Bounds the rating Rate.reRate(Schedule) can give any schedule
+ * 		completing a partial schedule of the search, so that branches
+ * 		which cannot beat the worst of the best K kept are pruned.
+ *
+ * 		The schedule rating is the average of its section ratings and
+ * 		its gap scores. Every gap scores gapMax, the break score of
+ * 		the preferences, so the rating is
+ * 		at most the larger of the section average and the average with
+ * 		every possible gap scored gapMax. Each term is maximised over
+ * 		the remaining courses with the optimistic ratings of each
+ * 		course: the sum of its best numberSelected sections and the
+ * 		fewest meeting days it could add. Courses that must be used
+ * 		always count; the others are added best ratio first while they
+ * 		raise the average, which maximises a ratio of sums.
+ *
+ * 		Conflicts, links and the minimum count are ignored, which only
+ * 		loosens the bound. The bound is disabled when a section rating
+ * 		is negative or a break cannot be scored.
+********************************************************/
+public class RatingBound {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700006L;//file version
+
+
+	/********************************************************
+	 * The following are private static constants for the bound
+	********************************************************/
+	private final static int days = Day.values().length;//the number of week days
+
+
+	/********************************************************
+	 * The following are private fields of the bound
+	********************************************************/
+	private boolean enabled;						//if the bound may be used
+	private double gapMax;							//the highest score of a single gap
+	private double[] rating;						//the rating of each matrix section
+	private int[] meets;							//the day mask of each matrix section
+	private double[] sectionSum;					//best section ratings of each course
+	private double[] gapSum;						//best section ratings plus gaps of each course
+	private int[] gapWeight;						//fewest sections plus gaps of each course
+	private int[] count;							//the sections chosen of each course
+	private double[][] mandatory;					//suffix sums of the courses that must be used
+	private boolean[] impossible;					//if a course after this one cannot be filled
+	private Integer[] bySections;					//optional courses, best section ratio first
+	private Integer[] byGaps;						//optional courses, best gap ratio first
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Precomputes the optimistic ratings of each course
+	 *
+	 * @param Course[] possible: the courses of the search
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param boolean[] skippable: if each course may be left out
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	 * @param SectionGroups groups: the sections searched for each time
+	 * @param RatingContext context: the preferences the schedules are rated with
+	********************************************************/
+	public RatingBound(Course[] possible, int[] numberSelected, boolean[] skippable, boolean[][] usable, ConflictMatrix matrix, SectionGroups groups, RatingContext context){
+		gapMax = findGapMax(matrix, context);		//the best break any two sections can have
+		enabled = !Double.isInfinite(gapMax) && !Double.isNaN(gapMax);
+
+		rating = new double[matrix.size()];
+		meets = new int[matrix.size()];
+
+		for(int index = 0; index < rating.length; index++){
+			Section section = matrix.getSection(index);
+			rating[index] = section.getRating();
+			enabled &= rating[index] >= 0;			//ratio bounds need positive sums
+
+			if(groups.isLeader(index)){				//a leader stands for its best member
+				rating[index] = groups.getBestRating(index);
+			}
+
+			for(Day day: Day.values()){
+				if(section.sectionMeetsOnDay(day)){
+					meets[index] |= 1 << day.value();
+				}
+			}
+		}
+
+		int courses = possible.length;
+		sectionSum = new double[courses];
+		gapSum = new double[courses];
+		gapWeight = new int[courses];
+		count = new int[courses];
+		mandatory = new double[courses + 1][4];
+		impossible = new boolean[courses + 1];
+		boolean[] optional = new boolean[courses];
+
+		for(int course = courses - 1; course >= 0; course--){
+			ArrayList<Double> ratings = new ArrayList<Double>();
+			ArrayList<Double> gaps = new ArrayList<Double>();
+			ArrayList<Integer> meetings = new ArrayList<Integer>();
+
+			for(int section = 0; section < possible[course].getNumOfSections(); section++){
+				if(usable[course][section]){
+					int index = matrix.index(course, section);
+					int meetDays = Integer.bitCount(meets[index]);
+
+					ratings.add(rating[index]);
+					gaps.add(rating[index] + meetDays * gapMax);
+					meetings.add(meetDays);
+				}
+			}
+
+			int select = numberSelected[course];
+			boolean fillable = select > 0 && ratings.size() >= select;
+
+			if(fillable){							//best sums and fewest meetings
+				count[course] = select;
+				sectionSum[course] = sumLargest(ratings, select);
+				gapSum[course] = sumLargest(gaps, select);
+				gapWeight[course] = select + sumSmallest(meetings, select);
+			}
+
+			System.arraycopy(mandatory[course + 1], 0, mandatory[course], 0, 4);
+			impossible[course] = impossible[course + 1];
+
+			if(!skippable[course]){					//the course must be used
+				if(fillable){
+					mandatory[course][0] += sectionSum[course];
+					mandatory[course][1] += count[course];
+					mandatory[course][2] += gapSum[course];
+					mandatory[course][3] += gapWeight[course];
+				}
+				else if(select > 0){
+					impossible[course] = true;		//no schedule can use it
+				}
+			}
+			else{
+				optional[course] = fillable;
+			}
+		}
+
+		bySections = sortOptional(optional, sectionSum, count);
+		byGaps = sortOptional(optional, gapSum, gapWeight);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the score of a break between the sections. Every
+	 * 		break scores the same, and only sections with a time have
+	 * 		breaks
+	 *
+	 * @see RatingContext.getBreakScore
+	 *
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	 * @param RatingContext context: the preferences the schedules are rated with
+	 *
+	 * @return double: the break score, 0 if there are no times
+	********************************************************/
+	private static double findGapMax(ConflictMatrix matrix, RatingContext context){
+		for(int index = 0; index < matrix.size(); index++){
+			if(!matrix.getSection(index).getPeriodStr().equals("TBA")){//breaks next to TBA sections are not scored
+				return context.getBreakScore();
+			}
+		}
+		return 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the bound may be used
+	 *
+	 * @return boolean: if the ratings allow a bound
+	********************************************************/
+	public boolean isEnabled(){
+		return enabled;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns an upper bound on the rating of every schedule
+	 * 		that completes the partial schedule
+	 *
+	 * @param int next: the first course not yet decided
+	 * @param int[] assigned: the matrix indices of the partial schedule
+	 * @param int depth: the number of sections in the partial schedule
+	 *
+	 * @return double: the bound, negative infinity if nothing completes it
+	********************************************************/
+	public double bound(int next, int[] assigned, int depth){
+		if(impossible[next]){
+			return Double.NEGATIVE_INFINITY;		//a required course cannot be filled
+		}
+
+		double sum = 0;								//the ratings so far
+		int[] perDay = new int[days];				//the meetings on each day so far
+
+		for(int pos = 0; pos < depth; pos++){
+			sum += rating[assigned[pos]];
+			int mask = meets[assigned[pos]];
+
+			for(int day = 0; day < days; day++){
+				perDay[day] += (mask >> day) & 1;
+			}
+		}
+
+		int gaps = 0;								//the gaps so far
+		for(int day = 0; day < days; day++){
+			gaps += Math.max(0, perDay[day] - 1);
+		}
+
+		double sections = best(sum + mandatory[next][0], depth + mandatory[next][1], sectionSum, count, bySections, next);
+		double withGaps = best(sum + gaps * gapMax + mandatory[next][2], depth + gaps + mandatory[next][3], gapSum, gapWeight, byGaps, next);
+
+		return Math.max(sections, withGaps);
+	}
+
+
+	/********************************************************
+	 * @purpose Adds the optional courses that raise the average, best
+	 * 		ratio first
+	 *
+	 * @param double sum: the sum so far
+	 * @param double weight: the number of values so far
+	 * @param double[] sums: the sum each course adds
+	 * @param int[] weights: the number of values each course adds
+	 * @param Integer[] order: the optional courses, best ratio first
+	 * @param int next: the first course not yet decided
+	 *
+	 * @return double: the best average
+	********************************************************/
+	private double best(double sum, double weight, double[] sums, int[] weights, Integer[] order, int next){
+		double average = (weight > 0) ? sum / weight : Double.NEGATIVE_INFINITY;
+
+		for(Integer course: order){
+			if(course.intValue() < next){			//already decided
+				continue;
+			}
+			if(sums[course] / weights[course] <= average){
+				break;								//no later course raises it either
+			}
+			sum += sums[course];
+			weight += weights[course];
+			average = sum / weight;
+		}
+
+		return (weight > 0) ? average : Double.POSITIVE_INFINITY;//an empty schedule is not bounded
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the optional courses, best ratio first
+	 *
+	 * @param boolean[] optional: if each course is optional and fillable
+	 * @param double[] sums: the sum of each course
+	 * @param int[] weights: the weight of each course
+	 *
+	 * @return Integer[]: the sorted course indices
+	********************************************************/
+	private static Integer[] sortOptional(boolean[] optional, final double[] sums, final int[] weights){
+		ArrayList<Integer> courses = new ArrayList<Integer>();
+
+		for(int course = 0; course < optional.length; course++){
+			if(optional[course]){
+				courses.add(course);
+			}
+		}
+
+		Integer[] order = courses.toArray(new Integer[courses.size()]);
+		Arrays.sort(order, new Comparator<Integer>(){
+			@Override
+			public int compare(Integer one, Integer two){
+				return Double.compare(sums[two] / weights[two], sums[one] / weights[one]);
+			}
+		});
+		return order;
+	}
+
+
+	/********************************************************
+	 * @purpose Sums the largest values of the list
+	 *
+	 * @param ArrayList<Double> values: the values
+	 * @param int number: the number of values to sum
+	 *
+	 * @return double: the sum
+	********************************************************/
+	private static double sumLargest(ArrayList<Double> values, int number){
+		Double[] sorted = values.toArray(new Double[values.size()]);
+		Arrays.sort(sorted);
+
+		double sum = 0;
+		for(int pos = 0; pos < number; pos++){
+			sum += sorted[sorted.length - 1 - pos];
+		}
+		return sum;
+	}
+
+
+	/********************************************************
+	 * @purpose Sums the smallest values of the list
+	 *
+	 * @param ArrayList<Integer> values: the values
+	 * @param int number: the number of values to sum
+	 *
+	 * @return int: the sum
+	********************************************************/
+	private static int sumSmallest(ArrayList<Integer> values, int number){
+		Integer[] sorted = values.toArray(new Integer[values.size()]);
+		Arrays.sort(sorted);
+
+		int sum = 0;
+		for(int pos = 0; pos < number; pos++){
+			sum += sorted[pos];
+		}
+		return sum;
+	}
+}
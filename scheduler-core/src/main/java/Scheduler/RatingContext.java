@@ -0,0 +1,314 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: RatingContext.java
+ *
+ * Contains class:
+ *
+ * 		RatingContext:
+ *
+ * 			Purpose: To hold the preferences used for rating, read
+ * 				once instead of on every rating
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * Class RatingContext
+ *
+ * @purpose Immutable snapshot of the rating preferences. Reading a
+ * 		preference goes back to the java.util.prefs node, and the
+ * 		preferred period is parsed again on every read, so Rate used
+ * 		to spend most of a section rating reading preferences.
+ *
+ * 		Preferences builds a context on first use and drops it when a
+ * 		rating preference changes. A build rates every schedule with
+ * 		the context it started with.
+********************************************************/
+public class RatingContext {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700014L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the context
+	********************************************************/
+	private final Period preferred;					//the preferred class hours, never changed
+	private final int preferredStart;				//the first preferred minute of the day
+	private final int preferredEnd;					//the last preferred minute of the day
+	private final boolean[] preferredMinutes;		//if each minute is within the preferred hours, may be null
+	private final boolean dayOff;					//if the days off are rated
+	private final int daysOff;						//the bit of each day preferred off
+	private final double shortestBreak;				//the shortest preferred break in minutes
+	private final double longestBreak;				//the longest preferred break in minutes
+	private final double breakScore;				//the score of every break between sections
+	private final boolean rateMyProfessor;			//if instructor ratings are averaged in
+	private final long generation;					//the number of this snapshot, never 0
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Reads the rating preferences
+	 *
+	 * @param Preferences prefs: the preferences to read
+	 * @param long generation: the number of the snapshot
+	********************************************************/
+	public RatingContext(Preferences prefs, long generation){
+		preferred = prefs.getPreferred();			//parse the period once
+		preferredStart = WeekMask.minuteOf(preferred.getStartTime());
+		preferredEnd = WeekMask.minuteOf(preferred.getEndTime());
+		preferredMinutes = tableMinutes(preferred, preferredStart, preferredEnd);
+		dayOff = prefs.hasDayOff();
+
+		boolean[] off = prefs.getDaysOff();
+		int days = 0;
+
+		for(Day day: Day.values()){
+			if(off[day.value()]){
+				days |= 1 << day.value();
+			}
+		}
+
+		daysOff = days;
+		shortestBreak = prefs.getShortestBreak();
+		longestBreak = prefs.getLongestBreak();
+		breakScore = Rate.breakScore(shortestBreak, longestBreak);
+		rateMyProfessor = prefs.isRateMyProfessorEnabled();
+		this.generation = generation;
+	}
+
+
+	/********************************************************
+	 * @purpose Builds the table of the minutes Time.isBetween places
+	 * 		within the preferred hours, so a meeting is checked with two
+	 * 		lookups instead of two Time comparisons and a clone of each
+	 *
+	 * @param Period preferred: the preferred class hours
+	 * @param int start: the first preferred minute
+	 * @param int end: the last preferred minute
+	 *
+	 * @return boolean[]: the preferred minutes, null if the hours cannot
+	 * 		be converted to minutes
+	********************************************************/
+	private static boolean[] tableMinutes(Period preferred, int start, int end){
+		if(!WeekMask.isEncodable(preferred.getStartTime()) || !WeekMask.isEncodable(preferred.getEndTime())){
+			return null;							//compare the periods instead
+		}
+
+		boolean[] table = new boolean[WeekMask.minutesPerDay];
+
+		for(int minute = 0; minute < table.length; minute++){
+			table[minute] = WeekMask.isBetween(minute, start, end);
+		}
+		return table;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the preferred hours were converted to minutes
+	 *
+	 * @return boolean: if isPreferredMinute may be used
+	********************************************************/
+	public boolean hasMinuteTable(){
+		return preferredMinutes != null;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the minute is within the preferred hours
+	 *
+	 * @param int minute: the minute, ordered as WeekMask orders minutes
+	 *
+	 * @return boolean: if the preferred period contains the minute
+	********************************************************/
+	public boolean isPreferredMinute(int minute){
+		return preferredMinutes[minute];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the period is within the preferred hours
+	 *
+	 * @param Period period: the period to check
+	 *
+	 * @return boolean: if the preferred period contains it
+	********************************************************/
+	public boolean isPreferred(Period period){
+		return preferred.contains(period);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the percent of the period outside the
+	 * 		preferred hours
+	 *
+	 * @param Period period: the period to check
+	 *
+	 * @return double: the percent outside
+	********************************************************/
+	public double percentOutside(Period period){
+		return period.percentOutside(preferred);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the first preferred minute of the day, ordered
+	 * 		as WeekMask orders minutes
+	 *
+	 * @return int: the minute the preferred hours start
+	********************************************************/
+	public int getPreferredStart(){
+		return preferredStart;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the last preferred minute of the day
+	 *
+	 * @return int: the minute the preferred hours end
+	********************************************************/
+	public int getPreferredEnd(){
+		return preferredEnd;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the days off are rated
+	 *
+	 * @return boolean: if a day off was requested
+	********************************************************/
+	public boolean hasDayOff(){
+		return dayOff;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the day is preferred off
+	 *
+	 * @param int day: the Day value
+	 *
+	 * @return boolean: if the day is preferred off
+	********************************************************/
+	public boolean isDayOff(int day){
+		return (daysOff & (1 << day)) != 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of the days preferred off
+	 * 		that are in the days given
+	 *
+	 * @param int days: the bit of each Day value
+	 *
+	 * @return int: the days both preferred off and given
+	********************************************************/
+	public int countDaysOff(int days){
+		return Integer.bitCount(daysOff & days);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the days preferred off
+	 *
+	 * @return int: the bit of each Day value preferred off
+	********************************************************/
+	public int getDaysOff(){
+		return daysOff;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the shortest preferred break
+	 *
+	 * @return double: the break in minutes
+	********************************************************/
+	public double getShortestBreak(){
+		return shortestBreak;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the longest preferred break
+	 *
+	 * @return double: the break in minutes
+	********************************************************/
+	public double getLongestBreak(){
+		return longestBreak;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the score of a break between two sections
+	 *
+	 * @see Rate.gapScore
+	 *
+	 * @return double: the score each break adds
+	********************************************************/
+	public double getBreakScore(){
+		return breakScore;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the other snapshot gives every section and
+	 * 		schedule the same rating as this one
+	 *
+	 * @param RatingContext other: the snapshot to compare, may be null
+	 *
+	 * @return boolean: if the rating preferences are the same
+	********************************************************/
+	public boolean ratesLike(RatingContext other){
+		return other != null &&
+			preferred.getStartTime().compareTo(other.preferred.getStartTime()) == Compare.equal.value() &&
+			preferred.getEndTime().compareTo(other.preferred.getEndTime()) == Compare.equal.value() &&
+			dayOff == other.dayOff && daysOff == other.daysOff &&
+			Double.compare(shortestBreak, other.shortestBreak) == 0 &&
+			Double.compare(longestBreak, other.longestBreak) == 0 &&
+			rateMyProfessor == other.rateMyProfessor;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of the snapshot. Preferences numbers
+	 * 		each snapshot it reads after the one before, so two ratings
+	 * 		with the same generation used the same preferences
+	 *
+	 * @return long: the generation, never 0
+	********************************************************/
+	public long getGeneration(){
+		return generation;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if instructor ratings are averaged in
+	 *
+	 * @return boolean: if RMP ratings are enabled
+	********************************************************/
+	public boolean isRateMyProfessorEnabled(){
+		return rateMyProfessor;
+	}
+}
@@ -0,0 +1,210 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: RatingService.java
+ *
+ * Contains classes:
+ *
+ * 		RatingService:
+ *
+ * 			Purpose: To rerate the courses of several terms that are
+ * 				not yet rated with the current preferences
+ *
+ * 		CourseTask:
+ *
+ * 			Purpose: To rerate a range of the courses, splitting it
+ * 				across the pool
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the stale courses
+import java.util.Collection;						//for the databases to rerate
+import java.util.Collections;						//for the identity set
+import java.util.IdentityHashMap;					//for the identity set
+import java.util.Set;								//for the changed databases
+import java.util.concurrent.ForkJoinPool;			//the pool the courses are rated on
+import java.util.concurrent.RecursiveAction;		//the ranges are fork join tasks
+
+
+/********************************************************
+ * Class RatingService
+ *
+ * @purpose Rerates only the courses whose ratings are stale. A course
+ * 		remembers the generation of the RatingContext it was rated
+ * 		with, and is stale once the preferences give a new context or
+ * 		a section is added to it. Databases that are loaded or
+ * 		downloaded are stale throughout, as their courses were never
+ * 		rated in this run.
+ *
+ * 		The stale courses of every term are rated in parallel, each
+ * 		by one task, and the databases in which a section's rating
+ * 		changed are returned so that only their tabs are updated.
+********************************************************/
+public class RatingService {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700016L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the service
+	********************************************************/
+	protected final static int coursesPerTask = 32;	//courses rated by a task without splitting
+
+
+	/********************************************************
+	 * The following are private fields of the service
+	********************************************************/
+	private final RatingContext context;			//the preferences to rate with
+	private final ArrayList<Course> stale;			//the courses to rate
+	private final ArrayList<Database> owners;		//the database of each stale course
+	private final boolean[] changed;				//if a rating of each stale course changed
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Finds the courses of the databases not rated with the
+	 * 		context
+	 *
+	 * @param Collection<Database> terms: the databases, may hold null
+	 * @param RatingContext context: the preferences to rate with
+	********************************************************/
+	public RatingService(Collection<Database> terms, RatingContext context){
+		this.context = context;						//set the context
+		stale = new ArrayList<Course>();
+		owners = new ArrayList<Database>();
+
+		for(Database term: terms){
+			if(term == null){						//not yet downloaded
+				continue;
+			}
+
+			for(Course course: term.getDatabase().values()){
+				if(!course.isRatedWith(context)){
+					stale.add(course);
+					owners.add(term);
+				}
+			}
+		}
+
+		changed = new boolean[stale.size()];
+	}
+
+
+	/********************************************************
+	 * @purpose Rerates the stale courses on the pool and returns the
+	 * 		databases a rating changed in
+	 *
+	 * @param ForkJoinPool pool: the pool to run on
+	 *
+	 * @return Set<Database>: the changed databases, by identity
+	********************************************************/
+	public Set<Database> reRate(ForkJoinPool pool){
+		Set<Database> result = Collections.newSetFromMap(new IdentityHashMap<Database, Boolean>());
+
+		if(stale.isEmpty()){						//every course is current
+			return result;
+		}
+
+		pool.invoke(new CourseTask(0, stale.size()));
+
+		for(int pos = 0; pos < changed.length; pos++){
+			if(changed[pos]){
+				result.add(owners.get(pos));
+			}
+		}
+		return result;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of courses that were stale
+	 *
+	 * @return int: the courses rerated
+	********************************************************/
+	public int getStale(){
+		return stale.size();
+	}
+
+
+	/********************************************************
+	 * Class CourseTask
+	 *
+	 * @purpose Rerates a range of the stale courses, splitting it in
+	 * 		half until it is small enough. Each task only writes its
+	 * 		own courses.
+	 *
+	 * @see RecursiveAction
+	********************************************************/
+	private class CourseTask extends RecursiveAction {
+
+
+		/********************************************************
+		 * The following are private static constants for serialization
+		********************************************************/
+		private static final long serialVersionUID = 1L;
+
+
+		/********************************************************
+		 * The following are private fields of the task
+		********************************************************/
+		private final int from;						//the first course
+		private final int to;						//the course after the last
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a task for the courses from and up to to
+		********************************************************/
+		protected CourseTask(int from, int to){
+			this.from = from;						//set the first course
+			this.to = to;							//set the end course
+		}
+
+
+		/********************************************************
+		 * @purpose Rates the courses or splits the range
+		 *
+		 * @see RecursiveAction
+		********************************************************/
+		@Override
+		protected void compute(){
+			if(to - from <= coursesPerTask){		//small enough to rate directly
+				for(int pos = from; pos < to; pos++){
+					changed[pos] = stale.get(pos).reRateChanged(context);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;			//split the range
+			invokeAll(new CourseTask(from, middle), new CourseTask(middle, to));
+		}
+	}
+}
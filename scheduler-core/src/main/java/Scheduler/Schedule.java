@@ -131,6 +131,26 @@ public class Schedule implements Serializable, Comparable<Schedule>, Cloneable {
 	}
 	
 	
+	/********************************************************
+	 * @purpose Adds the section without checking it, for callers that
+	 * 		have already checked it against the schedule's sections.
+	 * 		The rating is updated the same way as in add.
+	 * 
+	 * @param Section section: the section to add
+	*********************************************************/
+	protected void append(Section section){
+		if (classes.isEmpty()){						//first section sets the rating
+			classes.add(section);
+			this.rating = section.getRating();
+			return;
+		}
+		
+		int num = classes.size();
+		classes.add(section);						//add the section to the schedule
+		this.rating = (this.rating * num + section.getRating())/(num + 1);//set rating 
+	}
+	
+	
 	/********************************************************
 	 * @purpose Returns the number of sections in the schedule
 	 * 
@@ -208,7 +228,17 @@ public class Schedule implements Serializable, Comparable<Schedule>, Cloneable {
 	 * @purpose rerates the schedule
 	*********************************************************/
 	public void reRate(){
-		Rate.reRate(this);							//reRate the schedule
+		reRate(Main.prefs.getRatingContext());		//reRate with the current preferences
+	}
+
+
+	/********************************************************
+	 * @purpose rerates the schedule
+	 * 
+	 * @param RatingContext context: the rating preferences
+	*********************************************************/
+	public void reRate(RatingContext context){
+		Rate.reRate(this, context);					//reRate the schedule
 	}
 
 
@@ -406,7 +436,7 @@ public class Schedule implements Serializable, Comparable<Schedule>, Cloneable {
 			
 			if(contains(curr)){
 				for(int sec = 0; sec < curr.getNumOfSections(); sec++){
-					if(classes.contains(curr.getSection(sec))){
+					if(classes.contains(curr.getSectionRef(sec))){
 						added++;
 					}
 				}
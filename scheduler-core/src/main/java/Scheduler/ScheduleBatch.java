@@ -0,0 +1,112 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleBatch.java
+ *
+ * Contains class:
+ *
+ * 		ScheduleBatch:
+ *
+ * 			Purpose: To collect the schedules one worker finds and
+ * 				publish them to the build in batches
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the pending schedules
+
+
+/********************************************************
+ * Class ScheduleBatch
+ *
+ * @purpose Buffers the schedules found by a single worker thread and
+ * 		hands them to ThreadSynch.publishSchedules once enough have
+ * 		collected or enough time has passed. The first schedule is
+ * 		published as soon as it is found, so the user sees a result
+ * 		right away, and the later ones cost one hand off per batch.
+ *
+ * 		A batch is not thread safe; each worker owns its own.
+********************************************************/
+public class ScheduleBatch {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700003L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for batching
+	********************************************************/
+	protected final static int batchSize = 256;		//publish after this many schedules
+	protected final static long batchMillis = 50;	//or after this many milliseconds
+
+
+	/********************************************************
+	 * The following are private fields of the batch
+	********************************************************/
+	private final ThreadSynch sync;					//the build to publish to
+	private ArrayList<Schedule> pending;			//the schedules not yet published
+	private long published;							//when the last batch was published
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates an empty batch publishing to the build
+	 *
+	 * @param ThreadSynch sync: the sync object for the build
+	********************************************************/
+	public ScheduleBatch(ThreadSynch sync){
+		this.sync = sync;							//set the sync object
+		this.pending = new ArrayList<Schedule>();
+	}
+
+
+	/********************************************************
+	 * @purpose Adds a valid schedule, publishing the batch if it is due
+	 *
+	 * @param Schedule item: the rated schedule to publish
+	********************************************************/
+	public void add(Schedule item){
+		pending.add(item);							//hold the schedule
+
+		if(pending.size() >= batchSize || System.currentTimeMillis() - published >= batchMillis){
+			flush();								//the batch is due
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Publishes every pending schedule
+	********************************************************/
+	public void flush(){
+		if(!pending.isEmpty()){
+			sync.publishSchedules(pending);			//hand the batch to the build
+			pending = new ArrayList<Schedule>();	//the published list now belongs to the build
+		}
+		published = System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,622 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleCounter.java
+ *
+ * Contains classes:
+ *
+ * 		ScheduleCounter:
+ *
+ * 			Purpose: To count the schedules a search would build
+ * 				without building them, and to draw them uniformly
+ *
+ * 		State:
+ *
+ * 			Purpose: To key the counts of the remaining courses
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the drawn schedules
+import java.util.Arrays;							//for comparing the states
+import java.util.HashMap;							//for the counts of each state
+import java.util.HashSet;							//for drawing distinct schedules
+import java.util.Random;							//for drawing schedules
+
+
+/********************************************************
+ * Class ScheduleCounter
+ *
+ * @purpose Counts the schedules ScheduleSearch would return with no
+ * 		limit, by the same depth first search over the courses, but
+ * 		without creating a Schedule. The number of completions of a
+ * 		branch only depends on the course reached, the sections of the
+ * 		remaining courses its sections conflict with, the state of its
+ * 		constraint tracker and, up to the minimum, its number of
+ * 		sections. Each such state is counted once and remembered, so
+ * 		branches that block the same later sections are not searched
+ * 		again.
+ *
+ * 		A group of sections meeting at the same times counts once per
+ * 		member, and the sections of the last course are counted with
+ * 		bitCount instead of one by one. Counts too large for a long
+ * 		are returned as Long.MAX_VALUE.
+ *
+ * 		The counts also draw schedules uniformly: each choice is taken
+ * 		with probability proportional to its number of completions, so
+ * 		a draw costs one walk down the courses whatever the number of
+ * 		schedules. Draws are only uniform while the counts fit a long.
+ * 		When the count runs over its budget, schedules are drawn by
+ * 		random walks down the courses instead, restarting when a walk
+ * 		breaks a constraint; they are no longer uniform, but their cost
+ * 		stays bounded by the number wanted.
+********************************************************/
+public class ScheduleCounter {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700013L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the counter
+	********************************************************/
+	protected final static int maxStates = 1 << 20;	//the most states remembered
+	protected final static int cancelCheck = 4096;	//number of nodes between cancellation checks
+	protected final static int drawsPerSchedule = 4;//draws allowed per distinct schedule wanted
+	protected final static int walksPerSchedule = 64;//random walks allowed per schedule wanted
+
+
+	/********************************************************
+	 * The following are private fields of the counter
+	********************************************************/
+	private final Course[] possible;				//the courses to count
+	private final int[] numberSelected;				//the number of sections of each course
+	private final boolean[] skippable;				//if each course may be left out
+	private final boolean[][] usable;				//the sections each course may use
+	private final int useMin;						//the min number of sections to use
+	private final SectionGroups groups;				//the sections meeting at the same times
+	private final CourseConstraints constraints;	//the primary, link and count constraints
+	private final CandidateSets candidates;			//the usable and searched sections
+	private final ConflictMatrix matrix;			//the conflicts between the sections
+	private final ThreadSynch sync;					//the thread sync object
+
+	private final HashMap<State, Long> counts;		//the completions of each state
+	private CourseConstraints.Tracker tracker;		//the names held and lost on the branch
+	private long[][] blocked;						//the sections conflicting with each depth
+	private long nodes;								//the number of sections tried
+	private long budget = Long.MAX_VALUE;			//the sections that may be tried
+	private long deadline;							//the System.nanoTime the count stops at, 0 for none
+	private boolean stopped;						//if the count has been cancelled
+	private boolean exhausted;						//if the count ran over its budget
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates a counter over the prepared courses of a search
+	 *
+	 * @param Course[] possible: the courses to count
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param boolean[] skippable: if each course may be left out
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param int useMin: the minimum number of sections in a schedule
+	 * @param SectionGroups groups: the groups of the usable sections
+	 * @param CourseConstraints constraints: the constraints of the courses
+	 * @param CandidateSets candidates: the usable and searched sections
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	 * @param ThreadSynch sync: the sync object, checked for cancellation
+	********************************************************/
+	public ScheduleCounter(Course[] possible, int[] numberSelected, boolean[] skippable, boolean[][] usable, int useMin,
+			SectionGroups groups, CourseConstraints constraints, CandidateSets candidates, ConflictMatrix matrix, ThreadSynch sync){
+		this.possible = possible;					//set the courses
+		this.numberSelected = numberSelected;		//set the number of each section
+		this.skippable = skippable;					//set the skippable courses
+		this.usable = usable;						//set the usable sections
+		this.useMin = useMin;						//set the min number of sections
+		this.groups = groups;						//set the groups
+		this.constraints = constraints;				//set the constraints
+		this.candidates = candidates;				//set the candidate sets
+		this.matrix = matrix;						//set the conflict matrix
+		this.sync = sync;							//set the sync object
+
+		counts = new HashMap<State, Long>();
+	}
+
+
+	/********************************************************
+	 * @purpose Limits the sections the count may try before it gives up
+	 *
+	 * @param long budget: the number of sections
+	********************************************************/
+	public void setBudget(long budget){
+		this.budget = budget;						//set the budget
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the time the count gives up at, as if cancelled
+	 *
+	 * @param long deadline: the System.nanoTime to stop at, 0 for none
+	********************************************************/
+	public void setDeadline(long deadline){
+		this.deadline = deadline;					//set the deadline
+	}
+
+
+	/********************************************************
+	 * @purpose Counts the schedules of the courses
+	 *
+	 * @return long: the number of schedules, or -1 if cancelled, over
+	 * 		budget or out of time
+	********************************************************/
+	public long count(){
+		tracker = constraints.newTracker(new int[0], Database.beginIndex);
+		blocked = new long[matrix.size() + 1][];
+		blocked[0] = new long[matrix.getWords()];
+		stopped = false;
+
+		if(!tracker.isAlive()){
+			return 0;								//no schedule meets the constraints
+		}
+
+		long total = countCourse(Database.beginIndex, 0);
+		return stopped ? -1 : total;
+	}
+
+
+	/********************************************************
+	 * @purpose Draws distinct schedules uniformly at random. Repeated
+	 * 		draws are discarded, giving up after drawsPerSchedule draws
+	 * 		per schedule wanted
+	 *
+	 * @param int wanted: the number of schedules wanted
+	 * @param Random random: the source of the draws
+	 *
+	 * @return ArrayList<int[]>: the matrix indices of each schedule, or
+	 * 		null if cancelled
+	********************************************************/
+	public ArrayList<int[]> sample(int wanted, Random random){
+		long total = count();
+		boolean counted = total >= 0;				//draw uniformly from the counts
+		ArrayList<int[]> drawn = new ArrayList<int[]>();
+
+		if(!counted && !exhausted){
+			return null;							//cancelled
+		}
+		stopped = false;							//over budget, walk instead
+
+		HashSet<String> seen = new HashSet<String>();
+		int[] sections = new int[matrix.size()];
+		long limit = counted ? Math.min(total, wanted) : wanted;//the schedules that can be drawn
+		long draws = (long)wanted * (counted ? drawsPerSchedule : walksPerSchedule);
+
+		for(long draw = 0; drawn.size() < limit && draw < draws; draw++){
+			int depth = counted ? drawCourse(Database.beginIndex, 0, total, sections, random) : walk(sections, random);
+
+			if(exhausted && counted){				//the counts ran out, walk instead
+				counted = false;
+				stopped = false;
+				limit = wanted;
+				draws = (long)wanted * walksPerSchedule;
+				draw = 0;
+				continue;
+			}
+
+			if(stopped || sync.isCanceled()){
+				return null;						//cancelled
+			}
+
+			int[] schedule = (depth < 0) ? null : Arrays.copyOf(sections, depth);
+
+			if(schedule != null && seen.add(Arrays.toString(schedule))){//a schedule not drawn before
+				drawn.add(schedule);
+			}
+		}
+		return drawn;
+	}
+
+
+	/********************************************************
+	 * @purpose Draws a schedule by choosing each course's sections at
+	 * 		random among those not conflicting with the branch
+	 *
+	 * @param int[] sections: the matrix indices drawn, filled in
+	 * @param Random random: the source of the draws
+	 *
+	 * @return int: the number of sections of the schedule drawn, or -1
+	 * 		if it breaks a constraint
+	********************************************************/
+	private int walk(int[] sections, Random random){
+		boolean[] used = new boolean[possible.length];
+		boolean valid = true;
+		int depth = 0;
+		int decided;
+
+		for(decided = Database.beginIndex; decided < possible.length && valid; decided++){
+			if(numberSelected[decided] > 0 && tracker.canUse(decided) && (!skippable[decided] || random.nextBoolean())){
+				int chosen = walkSections(decided, depth, sections, random);
+				used[decided] = chosen > depth;
+				depth = chosen;
+			}
+
+			valid = tracker.decide(decided, used[decided]) && (used[decided] || skippable[decided]) &&
+				constraints.canReachMinimum(decided + 1, depth);
+		}
+
+		for(int course = decided - 1; course >= Database.beginIndex; course--){
+			tracker.undo(course, used[course]);		//leave the tracker as it was
+		}
+		return (valid && depth >= useMin) ? depth : -1;
+	}
+
+
+	/********************************************************
+	 * @purpose Chooses the sections of a course at random among those
+	 * 		not conflicting with the branch
+	 *
+	 * @param int course: the index of the course
+	 * @param int depth: the number of sections on the branch
+	 * @param int[] sections: the matrix indices drawn, filled in
+	 * @param Random random: the source of the draws
+	 *
+	 * @return int: the number of sections on the branch after, depth
+	 * 		if the course could not be given its sections
+	********************************************************/
+	private int walkSections(int course, int depth, int[] sections, Random random){
+		int first = matrix.index(course, 0);
+		int from = first;
+		int[] choices = new int[usable[course].length];
+
+		for(int left = numberSelected[course]; left > 0; left--){
+			int end = first + usable[course].length - left + 1;//room must remain for the rest
+			int count = 0;
+
+			for(int candidate = candidates.next(blocked[depth], from, end); candidate >= 0;
+					candidate = candidates.next(blocked[depth], candidate + 1, end)){
+				choices[count++] = candidate;
+			}
+
+			if(count == 0){
+				return depth - (numberSelected[course] - left);//drop the sections chosen
+			}
+
+			int candidate = choices[random.nextInt(count)];
+			int[] members = groups.getMembers(candidate);
+			push(candidate, depth);
+			sections[depth++] = members[random.nextInt(members.length)];
+			from = candidate + 1;
+		}
+		return depth;
+	}
+
+
+	/********************************************************
+	 * @purpose Draws a completion of the branch from the course on,
+	 * 		each with the same probability
+	 *
+	 * @param int course: the index of the course to decide
+	 * @param int depth: the number of sections on the branch
+	 * @param long total: the number of completions of the branch
+	 * @param int[] sections: the matrix indices drawn, filled in
+	 * @param Random random: the source of the draws
+	 *
+	 * @return int: the number of sections of the schedule drawn
+	********************************************************/
+	private int drawCourse(int course, int depth, long total, int[] sections, Random random){
+		if(course == possible.length){				//every course has been decided
+			return depth;
+		}
+
+		long skip = skippable[course] ? decide(course, false, depth) : 0;
+
+		if(below(random, total) < skip){			//leave the course out
+			tracker.decide(course, false);
+			int drawn = drawCourse(course + 1, depth, skip, sections, random);
+			tracker.undo(course, false);
+			return drawn;
+		}
+		return drawSections(course, 0, numberSelected[course], depth, total - skip, sections, random);
+	}
+
+
+	/********************************************************
+	 * @purpose Draws the remaining sections of a course and the courses
+	 * 		after it, each completion with the same probability
+	 *
+	 * @param int course: the index of the course
+	 * @param int from: the first section index that may be chosen
+	 * @param int left: the number of sections still to choose
+	 * @param int depth: the number of sections on the branch
+	 * @param long total: the number of completions of the choices
+	 * @param int[] sections: the matrix indices drawn, filled in
+	 * @param Random random: the source of the draws
+	 *
+	 * @return int: the number of sections of the schedule drawn
+	********************************************************/
+	private int drawSections(int course, int from, int left, int depth, long total, int[] sections, Random random){
+		if(left == 0){								//course is fully assigned
+			tracker.decide(course, true);
+			int drawn = drawCourse(course + 1, depth, total, sections, random);
+			tracker.undo(course, true);
+			return drawn;
+		}
+
+		int first = matrix.index(course, 0);
+		int end = first + usable[course].length - left + 1;//room must remain for the rest
+		long pick = below(random, total);
+		int candidate = candidates.next(blocked[depth], first + from, end);
+
+		while(candidate >= 0){
+			push(candidate, depth);
+			long rest = countSections(course, candidate - first + 1, left - 1, depth + 1);
+			int[] members = groups.getMembers(candidate);
+			long weight = multiply(rest, members.length);
+			int next = candidates.next(blocked[depth], candidate + 1, end);
+
+			if(pick < weight || (next < 0 && weight > 0)){//the last choice takes any rounding left
+				sections[depth] = members[random.nextInt(members.length)];
+				return drawSections(course, candidate - first + 1, left - 1, depth + 1, rest, sections, random);
+			}
+
+			pick -= weight;
+			candidate = next;
+		}
+		return depth;								//only reached when the counts saturated
+	}
+
+
+	/********************************************************
+	 * @purpose Returns a uniform random number from 0 up to the bound
+	 *
+	 * @param Random random: the source of the draws
+	 * @param long bound: the number of values, at least 1
+	 *
+	 * @return long: the number drawn
+	********************************************************/
+	private static long below(Random random, long bound){
+		long bits;
+		long value;
+
+		do{											//reject the uneven top of the range
+			bits = random.nextLong() >>> 1;
+			value = bits % bound;
+		}while(bits - value + (bound - 1) < 0);
+
+		return value;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of completions of the branch from
+	 * 		the course on
+	 *
+	 * @param int course: the index of the course to decide
+	 * @param int depth: the number of sections on the branch
+	 *
+	 * @return long: the number of completions
+	********************************************************/
+	private long countCourse(int course, int depth){
+		if(course == possible.length){				//every course has been decided
+			return (depth >= useMin) ? 1 : 0;
+		}
+
+		State state = new State(course, Math.min(depth, useMin), tracker.getState(),
+			candidates.blockedFrom(blocked[depth], matrix.index(course, 0)));
+		Long known = counts.get(state);
+
+		if(known != null){							//counted on another branch
+			return known;
+		}
+
+		long total = 0;
+
+		if(skippable[course]){						//leave the course out
+			total = add(total, decide(course, false, depth));
+		}
+
+		if(numberSelected[course] > 0 && tracker.canUse(course)){//choose the course's sections
+			total = add(total, countSections(course, 0, numberSelected[course], depth));
+		}
+
+		if(!stopped && counts.size() < maxStates){
+			counts.put(state, total);
+		}
+		return total;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of completions of each choice of the
+	 * 		remaining sections of a course
+	 *
+	 * @param int course: the index of the course
+	 * @param int from: the first section index that may be chosen
+	 * @param int left: the number of sections still to choose
+	 * @param int depth: the number of sections on the branch
+	 *
+	 * @return long: the number of completions
+	********************************************************/
+	private long countSections(int course, int from, int left, int depth){
+		if(left == 0){								//course is fully assigned
+			return decide(course, true, depth);
+		}
+
+		int first = matrix.index(course, 0);
+		int end = first + usable[course].length - left + 1;//room must remain for the rest
+		long total = 0;
+
+		if(left == 1 && course == possible.length - 1){//every last choice completes the same way
+			long each = decide(course, true, depth + 1);
+			return (each == 0) ? 0 : multiply(each, candidates.countFree(blocked[depth], first + from, end));
+		}
+
+		for(int candidate = candidates.next(blocked[depth], first + from, end); candidate >= 0 && !stopped;
+				candidate = candidates.next(blocked[depth], candidate + 1, end)){
+			if(++nodes > budget){
+				stopped = true;						//stop the count
+				exhausted = true;
+				return total;
+			}
+
+			if(nodes % cancelCheck == 0 && (sync.isCanceled() || (deadline != 0 && System.nanoTime() - deadline >= 0))){
+				stopped = true;						//stop the count
+				return total;
+			}
+
+			push(candidate, depth);
+			long below = countSections(course, candidate - first + 1, left - 1, depth + 1);
+			total = add(total, multiply(below, groups.getMembers(candidate).length));
+		}
+		return total;
+	}
+
+
+	/********************************************************
+	 * @purpose Records the decision of a course and returns the number
+	 * 		of completions of the courses after it
+	 *
+	 * @param int course: the index of the course decided
+	 * @param boolean used: if the course was given its sections
+	 * @param int depth: the number of sections on the branch
+	 *
+	 * @return long: the number of completions
+	********************************************************/
+	private long decide(int course, boolean used, int depth){
+		long total = 0;
+
+		if(tracker.decide(course, used) && constraints.canReachMinimum(course + 1, depth)){
+			total = countCourse(course + 1, depth);
+		}
+		tracker.undo(course, used);
+		return total;
+	}
+
+
+	/********************************************************
+	 * @purpose Marks the sections the candidate conflicts with for the
+	 * 		next depth
+	 *
+	 * @param int candidate: the matrix index of the section
+	 * @param int depth: the depth of the branch before the section
+	********************************************************/
+	private void push(int candidate, int depth){
+		long[] row = matrix.getRow(candidate);
+
+		if(blocked[depth + 1] == null){				//create the row on first use
+			blocked[depth + 1] = new long[row.length];
+		}
+
+		for(int word = 0; word < row.length; word++){
+			blocked[depth + 1][word] = blocked[depth][word] | row[word];
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Adds two counts, keeping Long.MAX_VALUE once reached
+	 *
+	 * @return long: the sum
+	********************************************************/
+	private static long add(long first, long second){
+		long sum = first + second;
+		return (sum < 0) ? Long.MAX_VALUE : sum;
+	}
+
+
+	/********************************************************
+	 * @purpose Multiplies a count by a number of sections, keeping
+	 * 		Long.MAX_VALUE once reached
+	 *
+	 * @return long: the product
+	********************************************************/
+	private static long multiply(long count, int members){
+		return (members > 0 && count > Long.MAX_VALUE / members) ? Long.MAX_VALUE : count * members;
+	}
+
+
+	/********************************************************
+	 * Class State
+	 *
+	 * @purpose The part of a branch its number of completions depends on
+	********************************************************/
+	private static class State {
+
+
+		/********************************************************
+		 * The following are private fields of the state
+		********************************************************/
+		private final int course;					//the course reached
+		private final int depth;					//the sections so far, up to the minimum
+		private final long[] names;					//the tracker state
+		private final long[] conflicts;				//the usable later sections blocked
+		private final int hash;						//the hash of the fields
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates the state of a branch
+		 *
+		 * @param int course: the course reached
+		 * @param int depth: the sections so far, up to the minimum
+		 * @param long[] names: the tracker state
+		 * @param long[] conflicts: the usable later sections blocked
+		********************************************************/
+		private State(int course, int depth, long[] names, long[] conflicts){
+			this.course = course;					//set the course
+			this.depth = depth;						//set the depth
+			this.names = names;						//set the tracker state
+			this.conflicts = conflicts;				//set the blocked sections
+
+			hash = 31 * (31 * (31 * course + depth) + Arrays.hashCode(names)) + Arrays.hashCode(conflicts);
+		}
+
+
+		/********************************************************
+		 * @see Object.hashCode
+		********************************************************/
+		@Override
+		public int hashCode(){
+			return hash;
+		}
+
+
+		/********************************************************
+		 * @see Object.equals
+		********************************************************/
+		@Override
+		public boolean equals(Object other){
+			if(!(other instanceof State)){
+				return false;
+			}
+
+			State state = (State)other;
+			return hash == state.hash && course == state.course && depth == state.depth &&
+				Arrays.equals(names, state.names) && Arrays.equals(conflicts, state.conflicts);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleHeap.java
+ *
+ * Contains class:
+ *
+ * 		ScheduleHeap:
+ *
+ * 			Purpose: To keep only the best schedules found by a
+ * 				schedule build worker
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.Arrays;							//for sorting the results
+import java.util.Collection;						//for merging heaps
+import java.util.Collections;						//for the reverse ordering
+import java.util.PriorityQueue;						//the underlying heap
+
+
+/********************************************************
+ * Class ScheduleHeap
+ *
+ * @purpose Keeps at most limit schedules, ordered the same way as
+ * 		Schedule.compareTo. The head of the heap is the worst schedule
+ * 		kept, so a new schedule only has to beat it to get in. Each
+ * 		worker owns its own heap; heaps are not synchronized and are
+ * 		merged once the workers have finished.
+********************************************************/
+public class ScheduleHeap {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700001L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the heap
+	********************************************************/
+	private final int limit;						//the most schedules kept
+	private final PriorityQueue<Schedule> heap;		//worst schedule at the head
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates an empty heap keeping up to limit schedules
+	 *
+	 * @param int limit: the number of schedules to keep, at least 1
+	********************************************************/
+	public ScheduleHeap(int limit){
+		this.limit = limit;							//set the limit
+		this.heap = new PriorityQueue<Schedule>(limit + 1, Collections.<Schedule>reverseOrder());
+	}
+
+
+	/********************************************************
+	 * @purpose Keeps the schedule if it is among the best seen so far
+	 * 		and is not already kept
+	 *
+	 * @param Schedule item: the schedule to offer
+	 *
+	 * @return boolean: if the schedule was kept
+	********************************************************/
+	public boolean offer(Schedule item){
+		if(heap.size() >= limit && item.compareTo(heap.peek()) >= Compare.equal.value()){
+			return false;							//no better than the worst kept
+		}
+
+		if(heap.contains(item)){					//already kept by this heap
+			return false;
+		}
+
+		heap.add(item);								//keep the schedule
+
+		if(heap.size() > limit){					//drop the worst
+			heap.poll();
+		}
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if a schedule with the rating would be turned
+	 * 		away by offer, so that it need not be built. Mirrors
+	 * 		Schedule.compareTo against the worst schedule kept
+	 *
+	 * @param double rating: the rating of the schedule
+	 * @param boolean closed: if the schedule has a closed section
+	 *
+	 * @return boolean: if the schedule is no better than the worst kept
+	********************************************************/
+	public boolean rejects(double rating, boolean closed){
+		if(heap.size() < limit){
+			return false;							//not full, anything is kept
+		}
+
+		Schedule worst = heap.peek();
+
+		if(closed != worst.hasClosedCourse()){		//open schedules sort first
+			return closed;
+		}
+		return !(rating > worst.getRating());		//equal, worse or not a number
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the worst schedule kept once the heap is full,
+	 * 		which a schedule must beat to be kept
+	 *
+	 * @return Schedule: the worst schedule, or null if not yet full
+	********************************************************/
+	public Schedule worst(){
+		return (heap.size() >= limit) ? heap.peek() : null;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of schedules kept
+	 *
+	 * @return int: the number of schedules
+	********************************************************/
+	public int size(){
+		return heap.size();							//return the size
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the kept schedules, best first
+	 *
+	 * @return Schedule[]: the sorted schedules
+	********************************************************/
+	public Schedule[] toArray(){
+		Schedule[] temp = heap.toArray(new Schedule[heap.size()]);
+		Arrays.sort(temp);							//sort best first
+		return temp;
+	}
+
+
+	/********************************************************
+	 * @purpose Merges the heaps of the workers into the best limit
+	 * 		schedules overall
+	 *
+	 * @param Collection<ScheduleHeap> heaps: the worker heaps
+	 * @param int limit: the number of schedules to keep
+	 *
+	 * @return Schedule[]: the sorted best schedules
+	********************************************************/
+	public static Schedule[] merge(Collection<ScheduleHeap> heaps, int limit){
+		ScheduleHeap all = new ScheduleHeap(limit);
+
+		for(ScheduleHeap part: heaps){
+			for(Schedule item: part.heap){
+				all.offer(item);					//also removes duplicates between workers
+			}
+		}
+		return all.toArray();
+	}
+}
@@ -0,0 +1,138 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleKey.java
+ *
+ * Contains class:
+ *
+ * 		ScheduleKey:
+ *
+ * 			Purpose: To identify a schedule by its sections so that
+ * 				schedules can be kept in hash based collections
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.Arrays;							//for sorting the sections
+
+
+/********************************************************
+ * Class ScheduleKey
+ *
+ * @purpose Canonical fingerprint of a schedule. The sections are sorted
+ * 		by Section.compareTo and hashed into a long, so two keys are
+ * 		equal exactly when Schedule.equals would find the schedules
+ * 		equal, without the pairwise contains checks.
+********************************************************/
+public class ScheduleKey {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700001L;//file version
+
+
+	/********************************************************
+	 * The following are private static constants for hashing
+	********************************************************/
+	private final static long offset = 0xcbf29ce484222325L;//FNV-1a offset basis
+	private final static long prime = 0x100000001b3L;//FNV-1a prime
+
+
+	/********************************************************
+	 * The following are private fields of the key
+	********************************************************/
+	private final Section[] sections;				//the sections in canonical order
+	private final long hash;						//the hash of the section ids
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates the key of the schedule's current sections
+	 *
+	 * @param Schedule item: the schedule to identify
+	********************************************************/
+	public ScheduleKey(Schedule item){
+		sections = item.getClassesObj().toArray(new Section[item.numberSections()]);
+		Arrays.sort(sections);						//sort by course then section id
+
+		long value = offset;
+		for(Section section: sections){				//hash the ids compareTo uses
+			value = (value ^ section.getCourseID().hashCode()) * prime;
+			value = (value ^ section.getSection().hashCode()) * prime;
+		}
+		hash = value;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the long hash of the key
+	 *
+	 * @return long: the fingerprint
+	********************************************************/
+	public long getHash(){
+		return hash;								//return the hash
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the hash code of the key
+	 *
+	 * @see Object
+	********************************************************/
+	@Override
+	public int hashCode(){
+		return (int)(hash ^ (hash >>> 32));			//fold the long hash
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the keys identify the same sections
+	 *
+	 * @param Object other: the object to compare
+	 *
+	 * @return boolean: if the keys are equal
+	********************************************************/
+	@Override
+	public boolean equals(Object other){
+		if(!(other instanceof ScheduleKey)){
+			return false;
+		}
+
+		ScheduleKey key = (ScheduleKey)other;
+
+		if(hash != key.hash || sections.length != key.sections.length){
+			return false;							//different fingerprints
+		}
+
+		for(int pos = 0; pos < sections.length; pos++){
+			if(sections[pos].compareTo(key.sections[pos]) != Compare.equal.value()){
+				return false;						//collision
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,259 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleScore.java
+ *
+ * Contains classes:
+ *
+ * 		ScheduleScore:
+ *
+ * 			Purpose: To hold the meeting days of the sections of a
+ * 				search as the schedule rating counts them
+ *
+ * 		Tracker:
+ *
+ * 			Purpose: To count the breaks of a branch as the search
+ * 				pushes and pops its sections
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * Class ScheduleScore
+ *
+ * @purpose Rates the schedules of the search without building their
+ * 		day lists. Every break scores the same, so Rate.reRate(Schedule)
+ * 		only needs the number of breaks: a day with n timed sections
+ * 		has n - 1 of them. A tracker keeps that count as the branch
+ * 		grows and shrinks, and the search keeps the sum of the section
+ * 		ratings as it picks the group members, so a finished schedule
+ * 		is rated with the same additions, in the same order, as Rate.
+ *
+ * 		Rate orders the sections of a day when a TBA section ties with
+ * 		one starting at midnight, or when the days of a section cannot
+ * 		be read. The tracker reports those schedules as not counted and
+ * 		the search rates them with Rate. The counts of a group leader
+ * 		stand for its members, so they are only used when every member
+ * 		meets like its leader.
+********************************************************/
+public class ScheduleScore {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700015L;//file version
+
+
+	/********************************************************
+	 * The following are private static constants for the score
+	********************************************************/
+	private final static int days = WeekMask.days;	//the number of week days
+
+
+	/********************************************************
+	 * The following are private fields of the score
+	********************************************************/
+	private final int[] timed;						//the days each section meets with a time
+	private final int[] untimed;					//the days each section meets as TBA
+	private final int[] tied;						//the days each section may tie on
+	private final boolean counted;					//if the breaks may be counted at all
+	private final double gap;						//the score of every break
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Reads the meeting days of every section of the matrix
+	 *
+	 * @param ConflictMatrix matrix: the sections of the search
+	 * @param SectionGroups groups: the sections searched for each time
+	 * @param RatingContext context: the preferences the schedules are rated with
+	********************************************************/
+	public ScheduleScore(ConflictMatrix matrix, SectionGroups groups, RatingContext context){
+		int size = matrix.size();
+		boolean readable = true;
+
+		timed = new int[size];
+		untimed = new int[size];
+		tied = new int[size];
+		gap = context.getBreakScore();
+
+		for(int index = 0; index < size; index++){
+			WeekMask mask = matrix.getSection(index).getWeekMask();
+			int meets = mask.getPrimaryDays();
+
+			if(meets < 0){							//Rate orders these
+				readable = false;
+				continue;
+			}
+
+			if(mask.isListed()){					//as Rate.reRate(Schedule) flags them
+				timed[index] = meets;
+				tied[index] = mask.startsAtMidnight() ? meets : 0;
+			}
+			else{
+				untimed[index] = meets;
+				tied[index] = mask.startsAtMidnight() ? 0 : meets;
+			}
+		}
+
+		for(int index = 0; index < size && readable; index++){
+			if(groups.isLeader(index)){
+				for(int member: groups.getMembers(index)){
+					readable &= timed[member] == timed[index] && untimed[member] == untimed[index] &&
+						tied[member] == tied[index];
+				}
+			}
+		}
+
+		counted = readable;
+	}
+
+
+	/********************************************************
+	 * @purpose Creates a tracker for a branch of the search, with the
+	 * 		sections of the prefix pushed
+	 *
+	 * @param int[] prefix: the matrix indices of the partial schedule
+	 * @param int capacity: the most sections the branch holds
+	 *
+	 * @return Tracker: the tracker of the branch
+	********************************************************/
+	public Tracker newTracker(int[] prefix, int capacity){
+		Tracker tracker = new Tracker(capacity);
+
+		for(int index: prefix){
+			tracker.push(index);
+		}
+		return tracker;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the rating Rate.reRate(Schedule) gives a schedule
+	 *
+	 * @param double sum: the section ratings summed in schedule order
+	 * @param int sections: the number of sections
+	 * @param int breaks: the number of breaks
+	 *
+	 * @return double: the rating of the schedule
+	********************************************************/
+	public double rate(double sum, int sections, int breaks){
+		for(int count = 0; count < breaks; count++){
+			sum += gap;								//score each break, in the same order
+		}
+		return sum / (breaks + sections);
+	}
+
+
+	/********************************************************
+	 * Class Tracker
+	 *
+	 * @purpose Counts the timed sections of each day on one branch of
+	 * 		the search. Each push is popped in reverse order, so a
+	 * 		tracker belongs to a single task.
+	********************************************************/
+	public class Tracker {
+
+
+		/********************************************************
+		 * The following are private fields of the tracker
+		********************************************************/
+		private final int[] perDay;					//the timed sections of each day
+		private final int[] breaks;					//the breaks at each depth
+		private final int[] untimedDays;			//the days with a TBA section at each depth
+		private final int[] tiedDays;				//the days that may tie at each depth
+		private int depth;							//the number of sections pushed
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a tracker with no section pushed
+		 *
+		 * @param int capacity: the most sections the branch holds
+		********************************************************/
+		private Tracker(int capacity){
+			perDay = new int[days];
+			breaks = new int[capacity + 1];
+			untimedDays = new int[capacity + 1];
+			tiedDays = new int[capacity + 1];
+		}
+
+
+		/********************************************************
+		 * @purpose Adds a section to the branch
+		 *
+		 * @param int index: the matrix index of the section
+		********************************************************/
+		public void push(int index){
+			int added = breaks[depth];
+
+			for(int day = 0; day < days; day++){
+				if((timed[index] & (1 << day)) != 0 && perDay[day]++ > 0){
+					added++;						//a break after the day's last section
+				}
+			}
+
+			breaks[depth + 1] = added;
+			untimedDays[depth + 1] = untimedDays[depth] | untimed[index];
+			tiedDays[depth + 1] = tiedDays[depth] | tied[index];
+			depth++;
+		}
+
+
+		/********************************************************
+		 * @purpose Removes the last section pushed
+		 *
+		 * @param int index: the matrix index of the section
+		********************************************************/
+		public void pop(int index){
+			for(int day = 0; day < days; day++){
+				if((timed[index] & (1 << day)) != 0){
+					perDay[day]--;
+				}
+			}
+			depth--;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns if the breaks of the branch may be counted
+		 * 		instead of ordered
+		 *
+		 * @return boolean: if getBreaks gives Rate's number of breaks
+		********************************************************/
+		public boolean isCounted(){
+			return counted && (untimedDays[depth] & tiedDays[depth]) == 0;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the number of breaks of the branch
+		 *
+		 * @return int: the breaks between sections on the same day
+		********************************************************/
+		public int getBreaks(){
+			return breaks[depth];
+		}
+	}
+}
@@ -0,0 +1,1224 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleSearch.java
+ *
+ * Contains class:
+ *
+ * 		ScheduleSearch:
+ *
+ * 			Purpose: To build schedules by a depth first search
+ * 				over the requested courses, abandoning a branch
+ * 				as soon as a section conflicts
+ *
+ * 		Branch:
+ *
+ * 			Purpose: To search the courses below a partial schedule,
+ * 				either directly or by forking a task per choice
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the course section lists
+import java.util.Arrays;							//for sorting the results
+import java.util.Random;							//for drawing schedules
+import java.util.concurrent.ConcurrentLinkedQueue;	//for the heaps of the pool threads
+import java.util.concurrent.RecursiveAction;		//the branches are fork join tasks
+import java.util.concurrent.atomic.AtomicLong;		//for the shared rating cutoff
+
+
+/********************************************************
+ * Class ScheduleSearch
+ *
+ * @purpose Builds the same schedules as the grey code enumeration
+ * 		in Database.makeSchedulesOpt, but assigns sections course by
+ * 		course so that a conflicting section prunes every combination
+ * 		below it instead of being discovered once per combination.
+ *
+ * 		Each course is either left out of the schedule or given
+ * 		exactly numberSelected mutually compatible sections, which is
+ * 		the set of schedules the grey code enumeration accepts.
+ *
+ * 		Sections of a course meeting at the same times are searched
+ * 		once, through SectionGroups, and expanded into every member
+ * 		when a branch completes. The compatible sections of a course
+ * 		are read from CandidateSets a word at a time.
+ *
+ * 		When the branch leaves a required course too few sections, the
+ * 		search finds the fewest sections on the branch that caused it,
+ * 		jumps back to the latest of them, and remembers a pair or triple
+ * 		of them in a NogoodStore so no other branch holds them together.
+ *
+ * 		The choices of the first courses are split into fork join
+ * 		tasks on Main.forkJoin, so idle threads steal the remaining
+ * 		branches instead of waiting on a single producer.
+********************************************************/
+public class ScheduleSearch {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700002L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the search
+	********************************************************/
+	protected final static int cancelCheck = 4096;	//number of nodes between cancellation checks
+	protected final static int tasksPerThread = 8;	//split until there are this many tasks per thread
+	protected final static int maxSplitCourses = 2;	//the most courses split into tasks
+	protected final static double boundTolerance = 1e-9;//rounding allowed between the bound and a rating
+	protected final static int diversePool = 8;		//schedules drawn per diverse schedule wanted
+	protected final static int slotsPerHour = 60 / WeekMask.slotLength;//slots counting as one section apart
+
+
+	/********************************************************
+	 * The following are private fields for the class
+	********************************************************/
+	private Course[] possible;						//the courses to use
+	private boolean allowClosed;					//if closed courses are allowed
+	private int useMin;								//the min number of sections to use
+	private ThreadSynch sync;						//the thread sync object
+	private boolean[][] sectionsAllowed;			//the sections allowed for each course
+	private int[] numberSelected;					//the number of each section selected
+	private String term;							//the term for the schedules
+	private ConflictMatrix matrix;					//the conflicts between the sections
+	private int limit;								//the number of best schedules kept, 0 for all
+	private SectionGroups groups;					//the sections meeting at the same times
+	private CourseConstraints constraints;			//the primary, link and count constraints
+	private NogoodCache cache;						//the nogoods of earlier builds, may be null
+
+	private ScheduleVector result;					//the valid schedules found
+	private ConcurrentLinkedQueue<ScheduleHeap> heaps;//the best schedules of each thread when limited
+	private ThreadLocal<ScheduleHeap> best;			//the heap of the current thread
+	private ThreadLocal<ScheduleBatch> batches;		//streams the schedules of the current thread
+	private boolean[] skippable;					//if each course may be left out
+	private boolean[][] usable;						//the sections each course may use
+	private int splitDepth;							//the courses before this are split into tasks
+	private volatile boolean stopped;				//if the search has been cancelled
+	private RatingBound bound;						//the rating bound, null unless limited
+	private AtomicLong cutoff;						//bits of the rating a schedule must beat
+	private NogoodStore nogoods;					//the sets of sections that cannot appear together
+	private CandidateSets candidates;				//the usable and searched sections as bitmaps
+	private long deadline;							//the System.nanoTime the search stops at, 0 for none
+	private volatile boolean expired;				//if the search stopped at the deadline
+	private RatingContext rating;					//the preferences every schedule is rated with
+	private ScheduleScore scores;					//the meeting days the breaks are counted from
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates a new search over the specified courses
+	 *
+	 * @param Course[] possible: the courses to build schedules from
+	 * @param boolean allowClosed: if closed sections are allowed
+	 * @param int useMin: the minimum number of sections in a schedule
+	 * @param ThreadSynch sync: the sync object for the build
+	 * @param boolean[][] sectionsAllowed: the allowed sections of each course
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param String term: the term for the schedules
+	 * @param ConflictMatrix matrix: the filled conflict matrix of the courses
+	********************************************************/
+	public ScheduleSearch(Course[] possible, boolean allowClosed, int useMin, ThreadSynch sync, boolean[][] sectionsAllowed, int[] numberSelected, String term, ConflictMatrix matrix){
+		this.possible = possible;					//set the courses
+		this.allowClosed = allowClosed;				//set if closed are allowed
+		this.useMin = useMin;						//set the min number of sections
+		this.sync = sync;							//set the sync object
+		this.sectionsAllowed = sectionsAllowed;		//set the allowed sections
+		this.numberSelected = numberSelected;		//set the number of each section
+		this.term = term;							//set the term
+		this.matrix = matrix;						//set the conflict matrix
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the number of best schedules the search keeps
+	 *
+	 * @param int limit: the number of schedules to keep, 0 to keep all
+	********************************************************/
+	public void setLimit(int limit){
+		this.limit = limit;							//set the limit
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the sections of each course the search may use,
+	 * 		when they were reduced before the search. The search finds
+	 * 		them itself if none are set.
+	 *
+	 * @param boolean[][] usable: if each section is usable
+	********************************************************/
+	public void setUsable(boolean[][] usable){
+		this.usable = usable;						//set the usable sections
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the groups of sections meeting at the same times.
+	 * 		The search groups the usable sections itself if none are set.
+	 *
+	 * @param SectionGroups groups: the groups of the usable sections
+	********************************************************/
+	public void setGroups(SectionGroups groups){
+		this.groups = groups;						//set the groups
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the cache of nogoods shared by the builds of the
+	 * 		database. Its nogoods are installed before the search and
+	 * 		the new ones saved after it.
+	 *
+	 * @param NogoodCache cache: the cache, or null to learn for this build only
+	********************************************************/
+	public void setNogoods(NogoodCache cache){
+		this.cache = cache;							//set the cache
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the time the search stops at. A search that reaches
+	 * 		it returns the schedules found so far instead of null, and
+	 * 		records the share of the search it decided.
+	 *
+	 * @param long deadline: the System.nanoTime to stop at, 0 for none
+	********************************************************/
+	public void setDeadline(long deadline){
+		this.deadline = deadline;					//set the deadline
+	}
+
+
+	/********************************************************
+	 * @purpose Runs the search and returns the sorted schedules
+	 *
+	 * @return Schedule[]: the valid schedules, the best found so far if
+	 * 		the deadline passed, or null if the build was cancelled
+	********************************************************/
+	public Schedule[] search(){
+		prepare();
+		rating = Main.prefs.getRatingContext();		//rate the whole build the same way
+		scores = new ScheduleScore(matrix, groups, rating);
+		nogoods = new NogoodStore(matrix);
+
+		if(cache != null){							//reuse what the earlier builds learned
+			sync.getStatistics().setRestored(cache.restore(nogoods, possible, numberSelected, usable, constraints, matrix));
+		}
+
+		result = new ScheduleVector();				//create list for schedules
+		heaps = new ConcurrentLinkedQueue<ScheduleHeap>();
+		best = new ThreadLocal<ScheduleHeap>(){		//one heap per pool thread
+			@Override
+			protected ScheduleHeap initialValue(){
+				ScheduleHeap heap = new ScheduleHeap(limit);
+				heaps.add(heap);					//remember it for the merge
+				return heap;
+			}
+		};
+		batches = new ThreadLocal<ScheduleBatch>(){	//one batch per pool thread
+			@Override
+			protected ScheduleBatch initialValue(){
+				return new ScheduleBatch(sync);
+			}
+		};
+		stopped = false;
+		expired = false;
+		splitDepth = findSplitDepth();
+		cutoff = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+		bound = null;
+
+		if(limit > 0){								//only the best are kept, prune by rating
+			bound = new RatingBound(possible, numberSelected, skippable, usable, matrix, groups, rating);
+			if(!bound.isEnabled()){
+				bound = null;
+			}
+		}
+
+		sync.setPermute((int)Math.min(Integer.MAX_VALUE - 1, countBranches(Database.beginIndex)));
+		sync.updateWatch("Searching Schedules", Database.beginIndex);//update the monitor
+
+		Main.forkJoin.invoke(new Branch(Database.beginIndex, new long[matrix.getWords()], new int[0], false, 1));
+
+		if(cache != null){							//nogoods hold whether or not the build finished
+			cache.save(nogoods.getLearned());
+		}
+
+		if(sync.isCanceled() || (stopped && !expired)){//check if cancelled
+			return null;							//return null to master thread
+		}
+
+		if(expired){								//keep what was found in time
+			sync.getStatistics().setExpired();
+		}
+
+		Schedule[] temp;
+
+		if(limit > 0){								//merge the best of each thread
+			temp = ScheduleHeap.merge(heaps, limit);
+		}
+		else{
+			temp = result.toArray(new Schedule[0]);	//get the schedule[]
+			Arrays.sort(temp);						//sort it
+		}
+		sync.updateWatch("Updating List", ThreadSynch.invalid);//set new note
+		return temp;								//return the results
+	}
+
+
+	/********************************************************
+	 * @purpose Counts the schedules the search would return with no
+	 * 		limit, without building them. With a deadline the count
+	 * 		gives up halfway to it, so the search keeps at least half
+	 * 		of the time
+	 *
+	 * @see ScheduleCounter
+	 *
+	 * @param long budget: the sections the count may try
+	 *
+	 * @return long: the number of schedules, Long.MAX_VALUE if more,
+	 * 		or -1 if cancelled, over budget or out of time
+	********************************************************/
+	public long count(long budget){
+		prepare();
+
+		ScheduleCounter counter = new ScheduleCounter(possible, numberSelected, skippable, usable, useMin,
+			groups, constraints, candidates, matrix, sync);
+		counter.setBudget(budget);
+
+		if(deadline != 0){							//leave the search its share of the time
+			long now = System.nanoTime();
+			counter.setDeadline(now + Math.max(0, deadline - now) / 2);
+		}
+		return counter.count();
+	}
+
+
+	/********************************************************
+	 * @purpose Draws schedules at random instead of searching them all,
+	 * 		at a cost bounded by the number wanted rather than by the
+	 * 		number of schedules. The schedules are drawn uniformly, or,
+	 * 		when diverse, chosen from a larger draw to differ as much
+	 * 		as possible in their sections and meeting times
+	 *
+	 * @see ScheduleCounter.sample
+	 *
+	 * @param int wanted: the number of schedules wanted
+	 * @param boolean diverse: if the schedules should differ the most
+	 * @param Random random: the source of the draws
+	 *
+	 * @return Schedule[]: the sorted schedules, fewer if there are not
+	 * 		enough, or null if cancelled
+	********************************************************/
+	public Schedule[] sample(int wanted, boolean diverse, Random random){
+		prepare();
+		rating = Main.prefs.getRatingContext();		//rate the whole draw the same way
+
+		ScheduleCounter counter = new ScheduleCounter(possible, numberSelected, skippable, usable, useMin,
+			groups, constraints, candidates, matrix, sync);
+		counter.setBudget(Database.countBudget);	//walk instead when counting is too slow
+		ArrayList<int[]> drawn = counter.sample(diverse ? wanted * diversePool : wanted, random);
+
+		if(drawn == null || sync.isCanceled()){		//check if cancelled
+			return null;
+		}
+
+		if(diverse){
+			drawn = pickDiverse(drawn, wanted);
+		}
+
+		Schedule[] temp = new Schedule[drawn.size()];
+
+		for(int pos = 0; pos < temp.length; pos++){
+			temp[pos] = new Schedule(term);
+
+			for(int index: drawn.get(pos)){
+				temp[pos].append(matrix.getSection(index));//already known not to conflict
+			}
+			temp[pos].reRate(rating);
+		}
+
+		Arrays.sort(temp);							//sort them
+		return temp;
+	}
+
+
+	/********************************************************
+	 * @purpose Picks the schedules farthest apart, one at a time, each
+	 * 		the farthest from those already picked. Schedules are apart
+	 * 		by the sections only one holds, and by every hour of the
+	 * 		week only one occupies
+	 *
+	 * @param ArrayList<int[]> drawn: the matrix indices of each schedule
+	 * @param int wanted: the number of schedules to pick
+	 *
+	 * @return ArrayList<int[]>: the schedules picked
+	********************************************************/
+	private ArrayList<int[]> pickDiverse(ArrayList<int[]> drawn, int wanted){
+		long[][] held = new long[drawn.size()][];	//the sections of each schedule
+		long[][] occupied = new long[drawn.size()][];//the slots of each schedule
+
+		for(int pos = 0; pos < held.length; pos++){
+			held[pos] = new long[matrix.getWords()];
+			occupied[pos] = new long[WeekMask.words];
+
+			for(int index: drawn.get(pos)){
+				held[pos][index / Long.SIZE] |= 1L << (index % Long.SIZE);
+				matrix.getSection(index).getWeekMask().addTo(occupied[pos]);
+			}
+		}
+
+		ArrayList<int[]> picked = new ArrayList<int[]>();
+		int[] nearest = new int[held.length];		//the distance to the nearest schedule picked
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+		int next = 0;								//the draws are random, start with the first
+
+		while(next >= 0 && picked.size() < wanted){
+			picked.add(drawn.get(next));
+			nearest[next] = -1;						//never picked again
+			int chosen = next;
+			next = -1;
+
+			for(int pos = 0; pos < held.length; pos++){
+				if(nearest[pos] >= 0){
+					nearest[pos] = Math.min(nearest[pos], distance(held[chosen], occupied[chosen], held[pos], occupied[pos]));
+
+					if(next < 0 || nearest[pos] > nearest[next]){
+						next = pos;
+					}
+				}
+			}
+		}
+		return picked;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns how far apart two schedules are
+	 *
+	 * @param long[] held: the sections of a schedule
+	 * @param long[] occupied: the slots of the schedule
+	 * @param long[] otherHeld: the sections of the other schedule
+	 * @param long[] otherOccupied: the slots of the other schedule
+	 *
+	 * @return int: the sections and hours only one of them has
+	********************************************************/
+	private static int distance(long[] held, long[] occupied, long[] otherHeld, long[] otherOccupied){
+		int sections = 0;
+		int slots = 0;
+
+		for(int word = 0; word < held.length; word++){
+			sections += Long.bitCount(held[word] ^ otherHeld[word]);
+		}
+		for(int word = 0; word < occupied.length; word++){
+			slots += Long.bitCount(occupied[word] ^ otherOccupied[word]);
+		}
+		return sections + slots / slotsPerHour;
+	}
+
+
+	/********************************************************
+	 * @purpose Finds the courses that may be left out, the usable
+	 * 		sections and their groups unless set, and compiles the
+	 * 		constraints, shared by the search and the count
+	********************************************************/
+	private void prepare(){
+		if(skippable != null){
+			return;									//already prepared
+		}
+
+		skippable = new boolean[possible.length];	//decide which courses may be left out
+		for(int course = 0; course < possible.length; course++){
+			skippable[course] = canSkip(course);
+		}
+
+		if(usable == null){							//reduce each course to its usable sections
+			usable = findUsable();
+		}
+
+		if(groups == null){							//search one section per meeting time
+			groups = new SectionGroups(possible, numberSelected, usable, matrix);
+		}
+
+		constraints = new CourseConstraints(possible, numberSelected, usable, useMin, sync.getPrimary(), sync.getOwner().dependancy, matrix);
+		candidates = new CandidateSets(usable, groups, matrix);
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of leading courses whose choices
+	 * 		are split into tasks, enough to give every pool thread
+	 * 		several branches to steal
+	 *
+	 * @return int: the index of the first course searched directly
+	********************************************************/
+	private int findSplitDepth(){
+		long target = (long)Main.forkJoin.getParallelism() * tasksPerThread;
+		long tasks = 1;								//the number of tasks so far
+		int course = Database.beginIndex;
+
+		while(course < possible.length && course < Database.beginIndex + maxSplitCourses){
+			tasks *= Math.max(1, countBranches(course++));
+
+			if(tasks >= target){					//enough tasks to steal
+				break;
+			}
+		}
+
+		return course;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the section is allowed by the user. Missing
+	 * 		entries are allowed, as in the grey code enumeration.
+	 *
+	 * @param int course: the index of the course
+	 * @param int index: the index of the section
+	 *
+	 * @return boolean: if the section may be used
+	********************************************************/
+	private boolean isAllowed(int course, int index){
+		try{
+			return sectionsAllowed[course][index];
+		}
+		catch(IndexOutOfBoundsException ex){}
+		catch(NullPointerException ex1){}
+
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the sections of each course the search may use
+	 *
+	 * @see Database.findUsable
+	 *
+	 * @return boolean[][]: if each section is usable
+	********************************************************/
+	private boolean[][] findUsable(){
+		return Database.findUsable(possible, sectionsAllowed, allowClosed, sync.getType());
+	}
+
+
+	/********************************************************
+	 * @purpose Raises the cutoff to the worst schedule of a full heap.
+	 * 		Every heap holds schedules from the search, so the best of
+	 * 		their worst ratings is a rating the final K-th schedule
+	 * 		reaches. Closed schedules sort after open ones whatever
+	 * 		their rating, so they never set the cutoff
+	 *
+	 * @param Schedule worst: the worst schedule of a full heap, or null
+	********************************************************/
+	private void raiseCutoff(Schedule worst){
+		if(worst == null || worst.hasClosedCourse()){
+			return;
+		}
+
+		long value = Double.doubleToLongBits(worst.getRating());
+		long current = cutoff.get();
+
+		while(worst.getRating() > Double.longBitsToDouble(current) && !cutoff.compareAndSet(current, value)){
+			current = cutoff.get();					//another thread raised it, check again
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the course may be left out of the schedule.
+	 * 		The grey code enumeration only produces the combinations
+	 * 		that leave a course out when the remaining numberSelected - 1
+	 * 		indices can be filled with allowed sections.
+	 *
+	 * @param int course: the index of the course
+	 *
+	 * @return boolean: if the course may be skipped
+	********************************************************/
+	private boolean canSkip(int course){
+		int needed = numberSelected[course] - 1;	//other indices in a skipping combination
+
+		for(int index = 0; index < possible[course].getNumOfSections() && needed > 0; index++){
+			if(isAllowed(course, index)){
+				needed--;
+			}
+		}
+
+		return needed <= 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the search should stop, because the build
+	 * 		was cancelled or the deadline has passed
+	 *
+	 * @return boolean: if the search should stop
+	********************************************************/
+	private boolean isStopping(){
+		return isPastDeadline() || sync.isCanceled();
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the search has a deadline that has passed
+	 *
+	 * @return boolean: if the search should stop with what it found
+	********************************************************/
+	private boolean isPastDeadline(){
+		if(deadline != 0 && System.nanoTime() - deadline >= 0){
+			expired = true;							//stop with the schedules found so far
+			return true;
+		}
+		return false;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of top level branches for the
+	 * 		specified course, used as the progress maximum
+	 *
+	 * @param int course: the index of the course
+	 *
+	 * @return long: the number of choices for the course
+	********************************************************/
+	private long countBranches(int course){
+		if(course >= possible.length){
+			return 1;								//only the empty schedule
+		}
+
+		int open = 0;								//the number of usable groups
+
+		for(int index = 0; index < usable[course].length; index++){
+			if(usable[course][index] && groups.isLeader(matrix.index(course, index))){
+				open++;
+			}
+		}
+
+		long choices = skippable[course] ? 1 : 0;	//the skipping branch
+		long subsets = 1;							//open choose numberSelected
+		int select = numberSelected[course];
+
+		for(int pos = 0; pos < select; pos++){
+			subsets = subsets * (open - pos) / (pos + 1);
+		}
+
+		return choices + Math.max(0, subsets);
+	}
+
+
+	/********************************************************
+	 * Class Branch
+	 *
+	 * @purpose Searches every schedule extending a partial schedule.
+	 * 		Branches starting before the split depth fork a child per
+	 * 		choice of their course; the others search depth first on
+	 * 		their own copy of the branch state.
+	 *
+	 * @see RecursiveAction
+	********************************************************/
+	private class Branch extends RecursiveAction {
+
+
+		/********************************************************
+		 * The following are private static constants for serialization
+		********************************************************/
+		private static final long serialVersionUID = 1L;
+
+
+		/********************************************************
+		 * The following are private fields of the branch
+		********************************************************/
+		private final int start;					//the first course decided by this branch
+		private final int base;						//the number of sections in the partial schedule
+		private final boolean topLevel;				//if this is a choice of the first course
+		private final CourseConstraints.Tracker tracker;//the names held and lost on the branch
+		private final ScheduleScore.Tracker score;	//the breaks of the branch
+		private final double share;					//the share of the search tree of this branch
+		private int[] assigned;						//the matrix indices on the current branch
+		private int[] chosen;						//the group members of the schedule being built
+		private double[] sums;						//the ratings of the members chosen before each position
+		private boolean[] closed;					//if a member chosen before each position is closed
+		private long[][] blocked;					//the sections conflicting with each depth after base
+		private int depth;							//the number of sections on the current branch
+		private long nodes;							//the number of sections tried
+		private long pruned;						//the branches cut by the rating bound
+		private long learned;						//the nogoods learned
+		private long jumps;							//the backjumps past the latest section
+		private int jump = Integer.MAX_VALUE;		//the depth being backjumped to
+		private double covered;						//the share of the tree decided so far
+		private double forked;						//the share handed to the children
+		private ArrayList<Branch> children;			//the forked choices, when splitting
+		private ArrayList<Schedule> found;			//the schedules found, when not limited
+
+
+		/********************************************************
+		 * (Constructor)
+		 *
+		 * @purpose Creates a branch continuing a partial schedule
+		 *
+		 * @param int start: the first course to decide
+		 * @param long[] conflicts: the sections conflicting with the partial schedule
+		 * @param int[] prefix: the matrix indices of the partial schedule
+		 * @param boolean topLevel: if this is a choice of the first course
+		 * @param double share: the share of the search tree of the branch
+		********************************************************/
+		protected Branch(int start, long[] conflicts, int[] prefix, boolean topLevel, double share){
+			this.start = start;						//set the first course
+			this.base = prefix.length;				//set the starting depth
+			this.topLevel = topLevel;				//set if top level
+			this.share = share;						//set the share
+
+			assigned = Arrays.copyOf(prefix, matrix.size());//deepest branch uses every section
+			blocked = new long[matrix.size() + 1 - base][];
+			blocked[0] = conflicts;					//rows after base are created on first use
+			depth = base;
+			tracker = constraints.newTracker(prefix, start);
+			score = scores.newTracker(prefix, matrix.size());
+		}
+
+
+		/********************************************************
+		 * @purpose Splits or searches the branch
+		 *
+		 * @see RecursiveAction
+		********************************************************/
+		@Override
+		protected void compute(){
+			boolean alive = tracker.isAlive() && constraints.canReachMinimum(start, base);
+
+			if(isPastDeadline()){					//the deadline passed while the task waited
+				stopped = true;
+			}
+
+			if(alive && cannotBeatBest(start)){		//the cutoff rose while the task waited
+				pruned++;
+				covered = share;
+			}
+			else if(alive && start < splitDepth){	//fork a task per choice
+				children = new ArrayList<Branch>();
+				assignCourse(start, share);
+				covered = stopped ? 0 : covered - forked;//the children add their own shares
+				invokeAll(children);
+			}
+			else if(alive){							//search directly
+				found = new ArrayList<Schedule>();
+				assignCourse(start, share);
+				result.addAll(found);				//one lock per branch
+				batches.get().flush();				//publish before the thread steals another branch
+			}
+			else{
+				covered = share;					//no schedule extends the branch
+			}
+
+			if(deadline != 0 && covered > 0){
+				sync.getStatistics().addCovered(covered);
+			}
+
+			if(pruned > 0){
+				sync.getStatistics().addPruned(pruned);
+			}
+
+			if(learned + jumps > 0){
+				sync.getStatistics().addLearned(learned, jumps);
+			}
+
+			if(topLevel && !stopped){				//one top level branch finished
+				sync.incrementProgress();
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Tries every choice for the specified course and searches
+		 * 		the courses after it
+		 *
+		 * @param int course: the index of the course to assign
+		 * @param double share: the share of the search tree of the choice
+		********************************************************/
+		private void assignCourse(int course, double share){
+			if(stopped){							//unwind once cancelled
+				return;
+			}
+
+			double before = covered;
+
+			if(course == possible.length){			//every course has been decided
+				checkSchedule();
+			}
+			else if(numberSelected[course] > 0 && constraints.isRequired(course) && !canFill(course)){
+				learn(course);						//no completion holds the course
+			}
+			else{
+				boolean choose = numberSelected[course] > 0 && tracker.canUse(course);
+				double kept = choose ? share : 0;	//the share of giving the course its sections
+
+				if(skippable[course] && choose){	//leaving it out weighs as much as a section
+					kept = share / 2;
+
+					if(deadline != 0){
+						int first = matrix.index(course, 0);
+						int ways = candidates.countSearched(blocked[depth - base], first, first + usable[course].length - numberSelected[course] + 1);
+						kept = share * ways / (ways + 1);
+					}
+				}
+
+				if(skippable[course]){				//leave the course out
+					advance(course, share - kept);
+				}
+
+				if(choose && jump >= depth){		//choose the course's sections, unless the cause is further back
+					chooseSections(course, 0, numberSelected[course], kept);
+				}
+			}
+
+			if(!stopped){							//every schedule of the choice is decided
+				covered = before + share;
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Chooses the remaining sections of a course in increasing
+		 * 		index order, pruning any section that conflicts with the
+		 * 		branch so far
+		 *
+		 * @param int course: the index of the course
+		 * @param int from: the first section index that may be chosen
+		 * @param int left: the number of sections still to choose
+		 * @param double share: the share of the search tree of the choice
+		********************************************************/
+		private void chooseSections(int course, int from, int left, double share){
+			if(left == 0){							//course is fully assigned
+				advance(course, share);
+				return;
+			}
+
+			double before = covered;
+			int first = matrix.index(course, 0);
+			int end = first + usable[course].length - left + 1;//room must remain for the rest
+			long[] conflicts = blocked[depth - base];//unchanged while the choices are tried
+			double part = share;
+
+			if(deadline != 0){						//split the share evenly, to report the coverage
+				part = share / Math.max(1, candidates.countSearched(conflicts, first + from, end));
+			}
+
+			for(int candidate = candidates.next(conflicts, first + from, end); candidate >= 0 && !stopped;
+					candidate = candidates.next(conflicts, candidate + 1, end)){
+				int index = candidate - first;		//usable leaders not conflicting with the branch
+
+				if(++nodes % cancelCheck == 0 && isStopping()){
+					stopped = true;					//stop the search
+					return;
+				}
+
+				push(candidate);					//push the section
+				chooseSections(course, index + 1, left - 1, part);
+				depth--;							//pop the section
+				score.pop(candidate);
+
+				if(jump < depth){					//the cause is further back
+					break;
+				}
+				else if(jump == depth){				//the cause was this section, try the next
+					jump = Integer.MAX_VALUE;
+				}
+			}
+
+			if(!stopped){							//every choice has been decided
+				covered = before + share;
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Moves on to the next course, or forks it as a child
+		 * 		when this branch is splitting
+		 *
+		 * @param int course: the index of the course just decided
+		 * @param double share: the share of the search tree of the choice
+		********************************************************/
+		private void advance(int course, double share){
+			double before = covered;
+
+			if(children != null){					//search the rest in a child task
+				children.add(new Branch(course + 1, blocked[depth - base].clone(),
+					Arrays.copyOf(assigned, depth), course == Database.beginIndex, share));
+				forked += share;
+			}
+			else{
+				boolean used = depth > 0 && constraints.courseOf(assigned[depth - 1]) == course;
+				boolean valid = tracker.decide(course, used) && constraints.canReachMinimum(course + 1, depth);
+
+				if(valid && cannotBeatBest(course + 1)){//no completion would be kept
+					pruned++;
+				}
+				else if(valid){
+					assignCourse(course + 1, share);//search the next course
+				}
+				tracker.undo(course, used);			//the course is decided again
+			}
+
+			if(!stopped){							//the choice is decided
+				covered = before + share;
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Returns if enough usable sections of the course do not
+		 * 		conflict with the branch
+		 *
+		 * @param int course: the index of the course
+		 *
+		 * @return boolean: if the course can still be given its sections
+		********************************************************/
+		private boolean canFill(int course){
+			int first = matrix.index(course, 0);
+
+			return candidates.hasAtLeast(blocked[depth - base], first, first + usable[course].length, numberSelected[course]);
+		}
+
+
+		/********************************************************
+		 * @purpose Finds the fewest sections on the branch whose conflicts
+		 * 		leave the required course too few sections, sets the jump
+		 * 		to the latest of them, and remembers pairs and triples as
+		 * 		nogoods. Only conflicts of the matrix are used, so a
+		 * 		nogood holds on every branch, and a failure they do not
+		 * 		explain backtracks normally.
+		 *
+		 * @param int course: the index of the required course
+		********************************************************/
+		private void learn(int course){
+			int first = matrix.index(course, 0);
+			int low = first / Long.SIZE;			//the words holding the course's sections
+			long[] domain = new long[(first + usable[course].length - 1) / Long.SIZE + 1 - low];
+
+			for(int index = 0; index < usable[course].length; index++){
+				if(usable[course][index]){
+					int bit = first + index;
+					domain[bit / Long.SIZE - low] |= 1L << (bit % Long.SIZE);
+				}
+			}
+
+			long[][] hits = new long[depth][];		//the course's sections each position rules out
+			for(int pos = 0; pos < depth; pos++){
+				hits[pos] = Arrays.copyOfRange(matrix.getRow(assigned[pos]), low, low + domain.length);
+			}
+
+			int[] culprits = findCulprits(domain, hits, numberSelected[course]);
+
+			if(culprits == null){
+				return;								//not explained by conflicts alone
+			}
+
+			if(culprits.length == 2 || culprits.length == 3){
+				int[] members = new int[culprits.length];
+				Section[] sections = new Section[culprits.length];
+
+				for(int pos = 0; pos < culprits.length; pos++){
+					members[pos] = assigned[culprits[pos]];
+					sections[pos] = matrix.getSection(members[pos]);
+				}
+
+				if(nogoods.add(members, new NogoodStore.Nogood(sections, possible[course], findSections(course), numberSelected[course]))){
+					learned++;
+				}
+			}
+
+			jump = (culprits.length == 0) ? -1 : culprits[culprits.length - 1];
+
+			if(jump < depth - 1){					//skips at least one section
+				jumps++;
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the positions of the fewest sections that leave
+		 * 		fewer than needed sections of the domain, the latest last
+		 * 		position as small as possible. Sets of more than three are
+		 * 		not searched; every position ruling out a section is used.
+		 *
+		 * @param long[] domain: the usable sections of the course
+		 * @param long[][] hits: the sections each position conflicts with
+		 * @param int needed: the number of sections the course takes
+		 *
+		 * @return int[]: the positions in increasing order, or null if the
+		 * 		branch leaves enough sections
+		********************************************************/
+		private int[] findCulprits(long[] domain, long[][] hits, int needed){
+			long[] none = new long[domain.length];
+
+			if(countLeft(domain, none, none, none) < needed){
+				return new int[0];					//the course never had enough
+			}
+
+			for(int c = 0; c < hits.length; c++){
+				if(countLeft(domain, hits[c], none, none) < needed){
+					return new int[]{c};
+				}
+			}
+
+			for(int c = 1; c < hits.length; c++){
+				for(int b = 0; b < c; b++){
+					if(countLeft(domain, hits[b], hits[c], none) < needed){
+						return new int[]{b, c};
+					}
+				}
+			}
+
+			for(int c = 2; c < hits.length; c++){
+				for(int b = 1; b < c; b++){
+					for(int a = 0; a < b; a++){
+						if(countLeft(domain, hits[a], hits[b], hits[c]) < needed){
+							return new int[]{a, b, c};
+						}
+					}
+				}
+			}
+
+			long[] all = new long[domain.length];	//every position together
+			ArrayList<Integer> hitting = new ArrayList<Integer>();
+
+			for(int pos = 0; pos < hits.length; pos++){
+				boolean hit = false;
+
+				for(int word = 0; word < domain.length; word++){
+					hit |= (hits[pos][word] & domain[word]) != 0;
+					all[word] |= hits[pos][word];
+				}
+
+				if(hit){
+					hitting.add(pos);
+				}
+			}
+
+			if(countLeft(domain, all, none, none) >= needed){
+				return null;
+			}
+
+			int[] culprits = new int[hitting.size()];
+			for(int pos = 0; pos < culprits.length; pos++){
+				culprits[pos] = hitting.get(pos);
+			}
+			return culprits;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the number of sections of the domain none of
+		 * 		three conflict rows rule out
+		 *
+		 * @param long[] domain: the usable sections of the course
+		 * @param long[] first: the sections ruled out by a position
+		 * @param long[] second: the sections ruled out by a position
+		 * @param long[] third: the sections ruled out by a position
+		 *
+		 * @return int: the sections left
+		********************************************************/
+		private int countLeft(long[] domain, long[] first, long[] second, long[] third){
+			int left = 0;
+
+			for(int word = 0; word < domain.length; word++){
+				left += Long.bitCount(domain[word] & ~(first[word] | second[word] | third[word]));
+			}
+			return left;
+		}
+
+
+		/********************************************************
+		 * @purpose Returns the usable sections of a course
+		 *
+		 * @param int course: the index of the course
+		 *
+		 * @return Section[]: the usable sections
+		********************************************************/
+		private Section[] findSections(int course){
+			ArrayList<Section> sections = new ArrayList<Section>();
+
+			for(int index = 0; index < usable[course].length; index++){
+				if(usable[course][index]){
+					sections.add(matrix.getSection(matrix.index(course, index)));
+				}
+			}
+			return sections.toArray(new Section[sections.size()]);
+		}
+
+
+		/********************************************************
+		 * @purpose Returns if the best rating any completion of the
+		 * 		branch could reach is below the cutoff
+		 *
+		 * @param int next: the first course not yet decided
+		 *
+		 * @return boolean: if the branch can be pruned
+		********************************************************/
+		private boolean cannotBeatBest(int next){
+			if(bound == null){
+				return false;						//not searching for the best only
+			}
+
+			double worst = Double.longBitsToDouble(cutoff.get());
+			return worst != Double.NEGATIVE_INFINITY && bound.bound(next, assigned, depth) + boundTolerance < worst;
+		}
+
+
+		/********************************************************
+		 * @purpose Checks every schedule of the completed branch, one
+		 * 		per combination of the members of its groups
+		********************************************************/
+		private void checkSchedule(){
+			if(depth < useMin){						//not enough sections
+				return;
+			}
+
+			if(chosen == null){						//create on the first schedule
+				chosen = new int[assigned.length];
+				sums = new double[assigned.length + 1];
+				closed = new boolean[assigned.length + 1];
+			}
+			expand(0);
+		}
+
+
+		/********************************************************
+		 * @purpose Chooses a member of the group at each position of the
+		 * 		branch and checks the schedules of the choices, summing the
+		 * 		ratings of the members as they are chosen
+		 *
+		 * @param int pos: the position of the branch to choose for
+		********************************************************/
+		private void expand(int pos){
+			if(pos == depth){						//every position has a member
+				if(isPastDeadline()){				//rating is slow, check the time per schedule
+					stopped = true;
+				}
+				else{
+					keepSchedule();
+				}
+				return;
+			}
+
+			for(int member: groups.getMembers(assigned[pos])){
+				if(stopped){
+					return;
+				}
+
+				Section section = matrix.getSection(member);
+				chosen[pos] = member;
+				sums[pos + 1] = sums[pos] + section.getRating();//in schedule order, as Rate sums them
+				closed[pos + 1] = closed[pos] || section.isClosed();
+				expand(pos + 1);
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Rates the chosen schedule and keeps it. A counted
+		 * 		schedule is rated before it is built, and is not built
+		 * 		when the heap would turn it away
+		********************************************************/
+		private void keepSchedule(){
+			boolean counted = score.isCounted();
+			double value = 0;
+
+			if(counted){							//rate from the running sums
+				value = scores.rate(sums[depth], depth, score.getBreaks());
+
+				if(limit > 0 && best.get().rejects(value, closed[depth])){
+					return;							//no better than the worst kept
+				}
+			}
+
+			Schedule item = new Schedule(term);
+
+			for(int pos = 0; pos < depth; pos++){
+				item.append(matrix.getSection(chosen[pos]));//already known not to conflict
+			}
+
+			if(counted){							//the tracker already checked the constraints
+				item.setRating(value);
+			}
+			else{
+				item.reRate(rating);				//the breaks must be ordered
+			}
+
+			if(limit > 0){							//only keep the best schedules
+				ScheduleHeap heap = best.get();
+
+				if(heap.offer(item)){
+					batches.get().add(item);		//show it before the search is done
+					raiseCutoff(heap.worst());		//later branches must beat the new worst
+				}
+			}
+			else if(found.add(item)){				//each branch is a distinct schedule
+				batches.get().add(item);			//show it before the search is done
+			}
+		}
+
+
+		/********************************************************
+		 * @purpose Adds the section to the branch, marking the sections
+		 * 		it conflicts with for the next depth
+		 *
+		 * @param int candidate: the matrix index of the section
+		********************************************************/
+		private void push(int candidate){
+			long[] row = matrix.getRow(candidate);
+			long[] current = blocked[depth - base];
+
+			if(blocked[depth + 1 - base] == null){	//create the row on first use
+				blocked[depth + 1 - base] = new long[row.length];
+			}
+			long[] next = blocked[depth + 1 - base];
+
+			for(int word = 0; word < row.length; word++){
+				next[word] = current[word] | row[word];
+			}
+
+			long[] pairs = nogoods.getPairRow(candidate);
+			if(pairs != null){						//sections learned not to go with it
+				for(int word = 0; word < row.length; word++){
+					next[word] |= pairs[word];
+				}
+			}
+
+			if(nogoods.hasTriples()){				//sections learned not to go with it and another
+				for(int pos = 0; pos < depth; pos++){
+					long[] triples = nogoods.getTripleRow(assigned[pos], candidate);
+
+					if(triples != null){
+						for(int word = 0; word < row.length; word++){
+							next[word] |= triples[word];
+						}
+					}
+				}
+			}
+
+			assigned[depth++] = candidate;
+			score.push(candidate);
+		}
+	}
+}
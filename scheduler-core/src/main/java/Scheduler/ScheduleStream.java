@@ -0,0 +1,158 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: ScheduleStream.java
+ *
+ * Contains class:
+ *
+ * 		ScheduleStream:
+ *
+ * 			Purpose: To keep the schedules shown while a build is
+ * 				still running sorted as new batches arrive
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the merged schedules
+import java.util.Arrays;							//for sorting the batches
+import java.util.HashSet;							//for the keys already shown
+import java.util.List;								//for the published batches
+
+
+/********************************************************
+ * Class ScheduleStream
+ *
+ * @purpose Merges the batches published by the build workers into one
+ * 		list sorted like the final result. Each call takes every batch
+ * 		coalesced since the last one, sorts them together and merges
+ * 		them with the schedules already shown in a single pass.
+ *
+ * 		Only the best previewLimit schedules are kept, so the cost of
+ * 		a merge does not grow with the size of the build. Workers may
+ * 		publish the same schedule, and in best-K mode a worker may
+ * 		publish schedules that later drop out of its heap, so the
+ * 		stream removes duplicates by ScheduleKey. The final result of
+ * 		the build replaces the stream once it is done.
+ *
+ * 		Only used on the event dispatch thread.
+********************************************************/
+public class ScheduleStream {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700004L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the stream
+	********************************************************/
+	protected final static int previewLimit = 1000;	//the most schedules shown while building
+
+
+	/********************************************************
+	 * The following are private fields of the stream
+	********************************************************/
+	private final int limit;						//the most schedules shown
+	private ArrayList<Schedule> shown;				//the schedules shown, best first
+	private HashSet<ScheduleKey> keys;				//the keys of the schedules shown
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates an empty stream
+	 *
+	 * @param int limit: the number of best schedules the build keeps,
+	 * 		0 if it keeps every schedule
+	********************************************************/
+	public ScheduleStream(int limit){
+		this.limit = (limit > 0) ? Math.min(limit, previewLimit) : previewLimit;
+		this.shown = new ArrayList<Schedule>();
+		this.keys = new HashSet<ScheduleKey>();
+	}
+
+
+	/********************************************************
+	 * @purpose Merges the published batches into the shown schedules
+	 *
+	 * @param List<Schedule[]> batches: the batches since the last merge
+	 *
+	 * @return boolean: if the shown schedules changed
+	********************************************************/
+	public boolean merge(List<Schedule[]> batches){
+		ArrayList<Schedule> fresh = new ArrayList<Schedule>();
+		Schedule worst = shown.size() < limit ? null : shown.get(shown.size() - 1);
+
+		for(Schedule[] batch: batches){
+			for(Schedule item: batch){
+				if(worst == null || item.compareTo(worst) < Compare.equal.value()){
+					fresh.add(item);				//could make the list
+				}
+			}
+		}
+
+		if(fresh.isEmpty()){
+			return false;							//nothing new
+		}
+
+		Schedule[] sorted = fresh.toArray(new Schedule[fresh.size()]);
+		Arrays.sort(sorted);						//sort the new schedules together
+
+		ArrayList<Schedule> merged = new ArrayList<Schedule>(limit);
+		int old = 0, next = 0;
+		boolean changed = false;
+
+		while(merged.size() < limit && (old < shown.size() || next < sorted.length)){
+			if(next == sorted.length || (old < shown.size() && shown.get(old).compareTo(sorted[next]) <= Compare.equal.value())){
+				merged.add(shown.get(old++));		//already shown
+			}
+			else if(keys.add(new ScheduleKey(sorted[next]))){
+				merged.add(sorted[next++]);			//a new schedule made the list
+				changed = true;
+			}
+			else{
+				next++;								//skip duplicates
+			}
+		}
+
+		while(old < shown.size()){					//forget the schedules pushed off the list
+			keys.remove(new ScheduleKey(shown.get(old++)));
+		}
+
+		shown = merged;
+		return changed;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the schedules shown, best first
+	 *
+	 * @return ArrayList<Schedule>: the merged schedules
+	********************************************************/
+	public ArrayList<Schedule> getShown(){
+		return shown;								//return the schedules
+	}
+}
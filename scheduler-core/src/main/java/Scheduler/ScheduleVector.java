@@ -34,14 +34,17 @@ package Scheduler;									//declare as member of scheduler package
 /********************************************************
  * The following imports are necessary for this class
 ********************************************************/
+import java.io.IOException;							//for reading the vector
+import java.io.ObjectInputStream;					//for reading the vector
 import java.util.Vector;							//subclassed by this class
+import java.util.concurrent.ConcurrentHashMap;		//for the keys of the added schedules
 
 
 /********************************************************
  * Class ScheduleVector
  * 
- * @purpose Provides a synchronized method for adding to 
- * 				the underlying Vector<Schedule>
+ * @purpose Provides a thread safe method for adding new schedules
+ * 				to the underlying Vector<Schedule>
  * 
  * @see Vector<T>, Synchronized
 ********************************************************/
@@ -56,6 +59,12 @@ public class ScheduleVector extends Vector<Schedule> {
 				Version.scheduleVect.id;			//serial version
 	
 	
+	/********************************************************
+	 * The following are private fields for the class
+	********************************************************/
+	private transient ConcurrentHashMap<ScheduleKey, Boolean> keys;//keys of the schedules added if new
+	
+	
 	/********************************************************
 	 * (Constructor)
 	 * 
@@ -64,25 +73,50 @@ public class ScheduleVector extends Vector<Schedule> {
 	********************************************************/
 	public ScheduleVector(){
 		super();									//call super()
+		keys = new ConcurrentHashMap<ScheduleKey, Boolean>();//create the key set
 	}
 	
 	
 	/********************************************************
-	 * @purpose Provides a synchronized method for adding to the
-	 * 		underlying Vector<Schedule> if the Schedule is new
+	 * @purpose Adds to the underlying Vector<Schedule> if the Schedule
+	 * 		is new. Only the schedules added by this method are checked,
+	 * 		by their ScheduleKey, so the callers do not wait on each
+	 * 		other while checking.
 	 * 
 	 * @param Schedule item: the schedule to be added if it is not already
 	 * 			in the Vector
 	 * 
-	 * @see Vector<T>, Synchronized
+	 * @return boolean: if the schedule was added
+	 * 
+	 * @see ScheduleKey
 	********************************************************/
-	public synchronized void addIfNew(Schedule item){
+	public boolean addIfNew(Schedule item){
 		if(item != null){							//verify the item is not null
-			boolean isContained = super.contains(item);
+			boolean isContained = keys.putIfAbsent(new ScheduleKey(item), Boolean.TRUE) != null;
 			
 			if(!isContained){						//if not already contained
-				this.add(item);						//then add the item
+				return this.add(item);				//then add the item
 			}	
 		}
+		return false;
+	}
+	
+	
+	/********************************************************
+	 * @purpose Reads the vector and rebuilds the keys, which are not
+	 * 		serialized, from the stored schedules
+	 * 
+	 * @param ObjectInputStream in: the stream to read from
+	 * 
+	 * @throws IOException: if the stream cannot be read
+	 * @throws ClassNotFoundException: if a class cannot be found
+	********************************************************/
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();						//read the fields
+		keys = new ConcurrentHashMap<ScheduleKey, Boolean>();//create the key set
+		
+		for(Schedule item: this){					//the stored schedules are already added
+			keys.putIfAbsent(new ScheduleKey(item), Boolean.TRUE);
+		}
 	}
 }
@@ -85,6 +85,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	private boolean secondary;						//secondary signal
 	private Period secPeriod;						//secondary period
 	private String secLocation;						//secondary location
+	private transient WeekMask mask;				//cached occupancy of the meetings
 	
 	
 	/********************************************************
@@ -269,6 +270,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 			return false;										//if invalid return false for changes made
 		}
 		this.period.setDays(days);							//boolean array of days
+		this.mask = null;									//meeting times changed
 		
 		return true;
 	}
@@ -284,6 +286,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	*********************************************************/
 	public boolean setPeriod(String period){
 		this.period = new Period();						//get new period
+		this.mask = null;								//meeting times changed
 		return this.period.setPeriod(period);			//set to new period based on string
 	}
 	
@@ -295,6 +298,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	*********************************************************/
 	public void setPeriod(Period period){
 		this.period = period;							//set the period
+		this.mask = null;								//meeting times changed
 	}
 	
 	
@@ -565,6 +569,13 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	 * @return boolean: if the sections conflict
 	*********************************************************/
 	public boolean conflictsWith(Section other){
+		WeekMask mine = this.getWeekMask();				//get the occupancy of both sections
+		WeekMask theirs = other.getWeekMask();
+		
+		if(mine.isRegular() && theirs.isRegular()){		//compare the packed slots if possible
+			return mine.conflictsWith(theirs);
+		}
+		
 		boolean conflict = false;						//boolean for if conflict
 		
 		if(this.hasSecondary() && other.hasSecondary()){//if secondary sessions
@@ -581,6 +592,23 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	}
 
 	
+	/*********************************************************
+	 * @purpose Returns the occupancy of the section's meetings,
+	 * 		computing it the first time it is needed
+	 * 
+	 * @return WeekMask: the packed meeting slots of the section
+	*********************************************************/
+	public WeekMask getWeekMask(){
+		WeekMask current = this.mask;					//read once, the mask is immutable
+		
+		if(current == null){							//compute if not cached
+			current = new WeekMask(this);
+			this.mask = current;
+		}
+		return current;									//return the mask
+	}
+	
+	
 	/*********************************************************
 	 * @purpose returns the rating for the section
 	 * 
@@ -605,7 +633,17 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	 * @purpose rerates the section
 	*********************************************************/
 	public void reRate(){
-		Rate.reRate(this);							//rerate the section
+		reRate(Main.prefs.getRatingContext());		//rerate with the current preferences
+	}
+	
+	
+	/********************************************************
+	 * @purpose rerates the section
+	 * 
+	 * @param RatingContext context: the rating preferences
+	*********************************************************/
+	public void reRate(RatingContext context){
+		Rate.reRate(this, context);					//rerate the section
 	}
 	
 	/********************************************************
@@ -651,6 +689,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	*********************************************************/
 	public void setSecondary(boolean secondary) {
 		this.secondary = secondary;			//set that the section has a second time
+		this.mask = null;					//meeting times changed
 	}
 
 
@@ -681,6 +720,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	*********************************************************/
 	public void setSecPeriod(Period secPeriod) {
 		this.secPeriod = secPeriod;			//set the period
+		this.mask = null;					//meeting times changed
 	}	
 	
 	
@@ -693,6 +733,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 	*********************************************************/
 	public boolean setSecPeriod(String secPeriod) {
 		this.secPeriod = new Period();				//create new period
+		this.mask = null;							//meeting times changed
 		return this.secPeriod.setPeriod(secPeriod);	//set period and return if success
 	}
 
@@ -709,6 +750,7 @@ public class Section implements Cloneable, Serializable, Comparable<Section>{
 			return false;										//if invalid return false for changes made
 		}
 		this.secPeriod.setDays(days);						//boolean array of days
+		this.mask = null;									//meeting times changed
 		
 		return true;
 	}
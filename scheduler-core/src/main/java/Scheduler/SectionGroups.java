@@ -0,0 +1,210 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: SectionGroups.java
+ *
+ * Contains class:
+ *
+ * 		SectionGroups:
+ *
+ * 			Purpose: To group the sections of each course that meet
+ * 				at the same times, so the search only tries one
+ * 				section of each group
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * The following imports are necessary for this class
+********************************************************/
+import java.util.ArrayList;							//for the members of each group
+import java.util.LinkedHashMap;						//for the groups of a course in section order
+
+
+/********************************************************
+ * Class SectionGroups
+ *
+ * @purpose Collapses the usable sections of a course that meet on the
+ * 		same days at the same times, such as lab sections that only
+ * 		differ by room or instructor. They conflict with exactly the
+ * 		same sections, so the search tries the first section of each
+ * 		group, the leader, and expands a finished branch into every
+ * 		combination of the members when the schedules are built. The
+ * 		links, types and ratings are checked per member then.
+ *
+ * 		Only courses taking a single section are grouped. Two members
+ * 		of a group always conflict unless they have no times, so a
+ * 		course taking several sections keeps one group per section.
+ *
+ * 		Groups are indexed by the conflict matrix index of the sections.
+********************************************************/
+public class SectionGroups {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700007L;//file version
+
+
+	/********************************************************
+	 * The following are private fields of the groups
+	********************************************************/
+	private final int[] leader;						//the leader of the group of each section
+	private final int[][] members;					//the usable members of each leader's group
+	private final double[] bestRating;				//the best member rating of each leader
+	private int groups;								//the number of groups of usable sections
+	private int sections;							//the number of usable sections
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Groups the usable sections of each course by the times
+	 * 		they meet
+	 *
+	 * @param Course[] possible: the courses of the search
+	 * @param int[] numberSelected: the number of sections of each course
+	 * @param boolean[][] usable: the sections each course may use
+	 * @param ConflictMatrix matrix: the conflict matrix of the courses
+	********************************************************/
+	public SectionGroups(Course[] possible, int[] numberSelected, boolean[][] usable, ConflictMatrix matrix){
+		leader = new int[matrix.size()];
+		members = new int[matrix.size()][];
+		bestRating = new double[matrix.size()];
+
+		for(int index = 0; index < leader.length; index++){
+			leader[index] = index;					//every section leads itself until grouped
+			members[index] = new int[]{index};
+			bestRating[index] = matrix.getSection(index).getRating();
+		}
+
+		for(int course = 0; course < possible.length; course++){
+			LinkedHashMap<String, ArrayList<Integer>> byTime = new LinkedHashMap<String, ArrayList<Integer>>();
+
+			for(int section = 0; section < possible[course].getNumOfSections(); section++){
+				if(!usable[course][section]){
+					continue;						//never searched
+				}
+
+				int index = matrix.index(course, section);
+				String key = (numberSelected[course] == 1) ? signature(matrix.getSection(index)) : Integer.toString(index);
+				ArrayList<Integer> group = byTime.get(key);
+
+				if(group == null){					//the first section is the leader
+					group = new ArrayList<Integer>();
+					byTime.put(key, group);
+				}
+				group.add(index);
+				sections++;
+			}
+
+			for(ArrayList<Integer> group: byTime.values()){
+				int first = group.get(0);
+				members[first] = new int[group.size()];
+
+				for(int pos = 0; pos < group.size(); pos++){
+					int index = group.get(pos);
+					leader[index] = first;
+					members[first][pos] = index;
+					bestRating[first] = Math.max(bestRating[first], matrix.getSection(index).getRating());
+				}
+				groups++;
+			}
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the meeting times of the section as a string,
+	 * 		equal for two sections exactly when they meet at the
+	 * 		same times
+	 *
+	 * @param Section item: the section
+	 *
+	 * @return String: the days and periods of the section
+	********************************************************/
+	private static String signature(Section item){
+		String key = item.getDaysStr() + " " + item.getPeriodStr();
+
+		if(item.hasSecondary()){					//the second meeting counts too
+			key += " / " + item.getSecDaysStr() + " " + item.getSecPeriodStr();
+		}
+		return key;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the section is the one searched for its group
+	 *
+	 * @param int index: the matrix index of the section
+	 *
+	 * @return boolean: if the section leads its group
+	********************************************************/
+	public boolean isLeader(int index){
+		return leader[index] == index;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the usable members of a leader's group, the
+	 * 		leader first
+	 *
+	 * @param int index: the matrix index of the leader
+	 *
+	 * @return int[]: the matrix indices of the members
+	********************************************************/
+	public int[] getMembers(int index){
+		return members[index];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the best rating of a member of a leader's group
+	 *
+	 * @param int index: the matrix index of the leader
+	 *
+	 * @return double: the highest member rating
+	********************************************************/
+	public double getBestRating(int index){
+		return bestRating[index];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of groups of usable sections
+	 *
+	 * @return int: the number of groups
+	********************************************************/
+	public int getGroups(){
+		return groups;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the number of usable sections grouped
+	 *
+	 * @return int: the number of sections
+	********************************************************/
+	public int getSections(){
+		return sections;
+	}
+}
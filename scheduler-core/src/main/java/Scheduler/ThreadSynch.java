@@ -36,9 +36,13 @@ package Scheduler;								//declare as member of scheduler package
 import io.coursescheduler.scheduler.retrieval.BannerDynamicCourseRetrieval;
 
 import java.util.ArrayList;						//for storing lists
+import java.util.Collection;					//for the published schedules
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Vector;						//for the worker thread list
+import java.util.concurrent.Phaser;				//for waiting on the workers
+import java.util.concurrent.TimeUnit;			//for the cancellation check interval
+import java.util.concurrent.TimeoutException;	//for the cancellation check interval
 import javax.swing.SwingWorker;					//the worker threads are SwingWorkers
 import javax.swing.ProgressMonitor;				//for monitoring the progress
 
@@ -62,6 +66,7 @@ public class ThreadSynch implements Observer {
 	 * The following are public static class fields
 	*********************************************************/
 	public static int invalid = -1;				//the invalid value
+	public static long cancelCheck = 100;		//milliseconds between cancellation checks while waiting
 	
 	
 	/*********************************************************
@@ -76,14 +81,17 @@ public class ThreadSynch implements Observer {
 	*********************************************************/
 	private ProgressMonitor watch;				//progress monitor for downloads
 	private Vector<SwingWorker<Void,Void>> helpers;//rmp helper threads
+	private Phaser running;						//one party per living helper plus the coordinator
 	private Thread parent;						//the parent thread
-	private boolean isCancelled = false;		//if the operation is cancelled
+	private volatile boolean isCancelled = false;//if the operation is cancelled
 	private ArrayList<String> primary;			//the primary course list
 	private MakeSchedule owner;					//the owning frame for this synchronization object
 	protected boolean failed = false;			//if the build failed, initialize to false
 	private CourseType type;					//the course types allowed
 	private int permute;						//the maximum value of the monitor
 	private Vector<Conflict> conflicts;			//the conflicts from this schedule build
+	private BuildStatistics statistics;			//the figures of this schedule build
+	private BuildScheduleThread publisher;		//the build streaming schedules to the gui, if any
 	
 	
 	/*********************************************************
@@ -94,7 +102,9 @@ public class ThreadSynch implements Observer {
 	*********************************************************/
 	public ThreadSynch(){
 		helpers = new Vector<SwingWorker<Void,Void>>();
+		running = new Phaser(1);				//register the coordinating thread
 		conflicts = new Vector<Conflict>();
+		statistics = new BuildStatistics();
 	}
 	
 	
@@ -107,6 +117,7 @@ public class ThreadSynch implements Observer {
 	*********************************************************/
 	public synchronized void addHelper(SwingWorker<Void,Void> helper){
 		helpers.add(helper);					//add the worker
+		running.register();						//the coordinator now waits for it too
 	}
 	
 	
@@ -188,16 +199,6 @@ public class ThreadSynch implements Observer {
 	}
 	
 	
-	/*********************************************************
-	 * @purpose set the list of helper workers
-	 * 
-	 * @param ArrayList<SwingWorker<Void,Void>> helpers: the list of workers
-	*********************************************************/
-	public void setHelpers(Vector<SwingWorker<Void,Void>> helpers) {
-		this.helpers = helpers;					//set the list of helper workers
-	}
-	
-	
 	/*********************************************************
 	 * @purpose return the parent thread
 	 * 
@@ -225,7 +226,7 @@ public class ThreadSynch implements Observer {
 		isCancelled = true;						//set cancelled
 		allowUpdate = false;					//disallow progress monitor updates
 		
-		for(SwingWorker<Void,Void> helper: helpers){//for each worker
+		for(SwingWorker<Void,Void> helper: new ArrayList<SwingWorker<Void,Void>>(helpers)){//copy, helpers remove themselves
 			helper.cancel(true);				//cancel the worker
 		}
 	}
@@ -247,7 +248,40 @@ public class ThreadSynch implements Observer {
 	 * @param SwingWorker<Void,Void> helper: the worker to remove from the list of helpers
 	*********************************************************/
 	public synchronized void removeHelper(SwingWorker<Void,Void> helper){
-		helpers.remove(helper);					//remove the helper
+		if(helpers.remove(helper)){				//a helper may remove itself more than once
+			running.arriveAndDeregister();		//release the coordinator if it was the last
+		}
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Blocks the coordinating thread until every helper has
+	 * 		removed itself. The thread sleeps on the phaser instead of
+	 * 		polling, waking only every cancelCheck milliseconds to see
+	 * 		if the user cancelled the progress monitor, in which case
+	 * 		the cancellation is passed on to the helpers
+	 * 
+	 * @return boolean: if the helpers finished without being cancelled
+	*********************************************************/
+	public boolean awaitHelpers(){
+		int phase = running.arrive();			//the coordinator is ready, wait for the helpers
+		
+		while(true){
+			try{
+				running.awaitAdvanceInterruptibly(phase, cancelCheck, TimeUnit.MILLISECONDS);
+				return !isCanceled();			//every helper has finished
+			}
+			catch(TimeoutException ex){
+				if(!isCancelled && isCanceled()){//check if the monitor was just cancelled
+					cancel();					//cancel the helpers, then wait for them to stop
+				}
+			}
+			catch(InterruptedException ex){
+				cancel();						//the coordinator itself was cancelled
+				Thread.currentThread().interrupt();//keep the interrupt for the caller
+				return false;
+			}
+		}
 	}
 
 
@@ -321,6 +355,51 @@ public class ThreadSynch implements Observer {
 	}
 
 
+	public BuildStatistics getStatistics() {
+		return statistics;
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Sets the build that shows schedules while they are found
+	 * 
+	 * @param BuildScheduleThread publisher: the build to stream to, or null
+	*********************************************************/
+	public void setPublisher(BuildScheduleThread publisher) {
+		this.publisher = publisher;
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Streams a batch of valid, rated schedules to the gui
+	 * 		before the build is finished. Does nothing when the build
+	 * 		has no publisher or has been cancelled
+	 * 
+	 * @param Collection<Schedule> found: the schedules to publish
+	 * 
+	 * @see ScheduleBatch
+	*********************************************************/
+	public void publishSchedules(Collection<Schedule> found){
+		if(publisher != null && !isCancelled && !found.isEmpty()){
+			publisher.publishSchedules(found.toArray(new Schedule[found.size()]));
+		}
+	}
+	
+	
+	/*********************************************************
+	 * @purpose Shows the number of schedules counted in the gui before
+	 * 		the build has found any of them. Does nothing when the build
+	 * 		has no publisher or has been cancelled
+	 * 
+	 * @see BuildStatistics.setCounted
+	*********************************************************/
+	public void publishCount(){
+		if(publisher != null && !isCancelled){
+			publisher.publishSchedules(new Schedule[0]);//an empty batch only updates the count
+		}
+	}
+
+
 	/* (non-Javadoc)
 	 * @see java.util.Observer#update(java.util.Observable, java.lang.Object)
 	 */
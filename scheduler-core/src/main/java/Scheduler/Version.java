@@ -94,6 +94,25 @@ public enum Version {
 	textFilter  (440000000, JTextFieldFilter.getVersionID(), pad(new String("JTextFieldFilter.java"))),
 	singleton   (450000000, SISListener.getVersionID(), pad(new String("SISListener.java"))),
 	conflict    (460000000, Conflict.getVersionID(), pad(new String("Conflict.java"))),
+	schedSearch (470000000, ScheduleSearch.versionID, pad(new String("ScheduleSearch.java"))),
+	weekMask    (480000000, WeekMask.versionID, pad(new String("WeekMask.java"))),
+	conflictMatrix(490000000, ConflictMatrix.versionID, pad(new String("ConflictMatrix.java"))),
+	buildStats  (500000000, BuildStatistics.versionID, pad(new String("BuildStatistics.java"))),
+	scheduleHeap(510000000, ScheduleHeap.versionID, pad(new String("ScheduleHeap.java"))),
+	scheduleKey (520000000, ScheduleKey.versionID, pad(new String("ScheduleKey.java"))),
+	scheduleBatch(530000000, ScheduleBatch.versionID, pad(new String("ScheduleBatch.java"))),
+	scheduleStream(540000000, ScheduleStream.versionID, pad(new String("ScheduleStream.java"))),
+	ratingBound (550000000, RatingBound.versionID, pad(new String("RatingBound.java"))),
+	sectionGroups(560000000, SectionGroups.versionID, pad(new String("SectionGroups.java"))),
+	arcConsistency(570000000, ArcConsistency.versionID, pad(new String("ArcConsistency.java"))),
+	courseConstr(580000000, CourseConstraints.versionID, pad(new String("CourseConstraints.java"))),
+	nogoodStore (590000000, NogoodStore.versionID, pad(new String("NogoodStore.java"))),
+	nogoodCache (600000000, NogoodCache.versionID, pad(new String("NogoodCache.java"))),
+	candidateSets(610000000, CandidateSets.versionID, pad(new String("CandidateSets.java"))),
+	scheduleCount(620000000, ScheduleCounter.versionID, pad(new String("ScheduleCounter.java"))),
+	ratingContext(630000000, RatingContext.versionID, pad(new String("RatingContext.java"))),
+	scheduleScore(640000000, ScheduleScore.versionID, pad(new String("ScheduleScore.java"))),
+	ratingService(650000000, RatingService.versionID, pad(new String("RatingService.java"))),
 	;
 	
 	
@@ -0,0 +1,343 @@
+/********************************************************
+ * Copyright (C) 2008 Course Scheduler Team
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of
+ * 	the GNU General Public License as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * 	without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program;
+ * 	if not, write to:
+ * 		Free Software Foundation, Inc.
+ * 		59 Temple Place, Suite 330,
+ * 		Boston, MA 02111-1307 USA
+********************************************************/
+
+/********************************************************
+ * Course Scheduler
+ * File: WeekMask.java
+ *
+ * Contains class:
+ *
+ * 		WeekMask:
+ *
+ * 			Purpose: To store the weekly meeting times of a section
+ * 				as packed 5 minute slots so that conflicts can be
+ * 				checked without comparing Time objects
+ *
+ * @author Course Scheduler Team
+********************************************************/
+package Scheduler;									//declare as member of scheduler package
+
+
+/********************************************************
+ * Class WeekMask
+ *
+ * @purpose Immutable occupancy of a section's primary and secondary
+ * 		meetings. Each weekday is split into 5 minute slots which are
+ * 		packed into longs, so two masks that share no slot cannot
+ * 		conflict. Slots are coarser than minutes, so a shared slot is
+ * 		confirmed against the exact meeting times, using the same
+ * 		inclusive comparisons as Period.conflictsWith.
+ *
+ * 		The mask also keeps what Rate needs to count the breaks of a
+ * 		schedule without ordering its sections: the days of the primary
+ * 		meeting, if it has a time, and if it starts at midnight, where
+ * 		the TBA meetings sort.
+********************************************************/
+public class WeekMask {
+
+
+	/********************************************************
+	 * UPDATE SERIAL VERSION IN VERSION WHEN THIS FILE CHANGES
+	********************************************************/
+	protected final static long versionID = 2026101700001L;//file version
+
+
+	/********************************************************
+	 * The following are protected static constants for the mask
+	********************************************************/
+	protected final static int slotLength = 5;		//minutes per slot
+	protected final static int minutesPerDay = 24 * 60;//minutes in a day
+	protected final static int slotsPerDay = minutesPerDay / slotLength;//slots in a day
+	protected final static int days = Day.values().length;//days in the week
+	protected final static int words = (days * slotsPerDay + Long.SIZE - 1) / Long.SIZE;//longs per mask
+
+
+	/********************************************************
+	 * The following are private fields of the mask
+	********************************************************/
+	private final long[] bits;						//the occupied slots
+	private final int[] starts;						//start minute of each meeting
+	private final int[] ends;						//end minute of each meeting
+	private final int[] meetingDays;				//day bits of each meeting
+	private final boolean regular;					//if every time could be encoded
+	private final int primaryDays;					//day bits of the primary meeting, -1 if unreadable
+	private final boolean listed;					//if the primary meeting is not TBA
+	private final boolean midnight;					//if the primary meeting starts at midnight
+
+
+	/********************************************************
+	 * (Constructor)
+	 *
+	 * @purpose Creates the mask for the meetings of the section
+	 *
+	 * @param Section item: the section to encode
+	********************************************************/
+	public WeekMask(Section item){
+		int count = item.hasSecondary() ? 2 : 1;	//primary always, secondary when flagged
+
+		bits = new long[words];
+		starts = new int[count];
+		ends = new int[count];
+		meetingDays = new int[count];
+
+		boolean valid = encode(item.getPeriodPer(), 0);
+
+		if(item.hasSecondary()){
+			valid &= encode(item.getSecPeriodPer(), 1);
+		}
+
+		regular = valid;
+
+		Time start = item.getPeriodPer().getStartTime();
+		boolean[] meets = item.getPeriodPer().getDays();
+		int found = 0;
+
+		for(int day = 0; day < days && meets != null && day < meets.length; day++){
+			found |= meets[day] ? 1 << day : 0;
+		}
+
+		primaryDays = (meets != null && meets.length >= days) ? found : -1;
+		listed = !item.getPeriodStr().equals("TBA");
+		midnight = start.getAm() && (start.getHour() == 0 || start.getHour() == 12) && start.getMinute() == 0;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if every meeting of the section could be
+	 * 		encoded. Irregular masks must be checked with the Period
+	 * 		comparisons instead.
+	 *
+	 * @return boolean: if the mask is usable for conflict checks
+	********************************************************/
+	public boolean isRegular(){
+		return regular;								//return if regular
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the days the primary meeting is held on
+	 *
+	 * @return int: the bit of each Day value, -1 if the days of the
+	 * 		meeting cannot be read
+	********************************************************/
+	public int getPrimaryDays(){
+		return primaryDays;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the start of a meeting, only read when regular
+	 *
+	 * @param int meeting: 0 for the primary meeting, 1 for the secondary
+	 *
+	 * @return int: the start minute, ordered as minuteOf orders them
+	********************************************************/
+	public int getStart(int meeting){
+		return starts[meeting];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the end of a meeting, only read when regular
+	 *
+	 * @param int meeting: 0 for the primary meeting, 1 for the secondary
+	 *
+	 * @return int: the end minute, ordered as minuteOf orders them
+	********************************************************/
+	public int getEnd(int meeting){
+		return ends[meeting];
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the primary meeting has a time, so that the
+	 * 		breaks next to it are scored
+	 *
+	 * @return boolean: if the meeting is not TBA
+	********************************************************/
+	public boolean isListed(){
+		return listed;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the primary meeting starts at midnight, the
+	 * 		earliest time and the time of the TBA meetings
+	 *
+	 * @return boolean: if no start time sorts before it
+	********************************************************/
+	public boolean startsAtMidnight(){
+		return midnight;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if this mask and the other share any slot
+	 *
+	 * @param WeekMask other: the mask to check against
+	 *
+	 * @return boolean: if any slot is occupied by both
+	********************************************************/
+	public boolean intersects(WeekMask other){
+		for(int word = 0; word < words; word++){
+			if((bits[word] & other.bits[word]) != 0){
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/********************************************************
+	 * @purpose Adds the slots of this mask to an occupancy
+	 *
+	 * @param long[] occupied: the slots occupied, words longs
+	********************************************************/
+	public void addTo(long[] occupied){
+		for(int word = 0; word < words; word++){
+			occupied[word] |= bits[word];
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Determines if the meetings of this mask conflict with
+	 * 		the meetings of the other
+	 *
+	 * @param WeekMask other: the mask to check against
+	 *
+	 * @return boolean: if the meetings conflict
+	********************************************************/
+	public boolean conflictsWith(WeekMask other){
+		if(!intersects(other)){						//no shared slot, no conflict
+			return false;
+		}
+
+		for(int mine = 0; mine < starts.length; mine++){
+			for(int theirs = 0; theirs < other.starts.length; theirs++){
+				if((meetingDays[mine] & other.meetingDays[theirs]) != 0 &&
+						overlaps(starts[mine], ends[mine], other.starts[theirs], other.ends[theirs])){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+
+	/********************************************************
+	 * @purpose Returns the minute of the day the time represents,
+	 * 		ordered the same way as Time.compareTo
+	 *
+	 * @param Time time: the time to convert
+	 *
+	 * @return int: the minute of the day
+	********************************************************/
+	protected static int minuteOf(Time time){
+		int hour = (time.getHour() == 12) ? 0 : time.getHour();//12 sorts first, as in compareTo
+
+		return (time.getAm() ? 0 : minutesPerDay / 2) + hour * 60 + time.getMinute();
+	}
+
+
+	/********************************************************
+	 * @purpose Encodes a meeting into the mask
+	 *
+	 * @param Period period: the meeting to encode
+	 * @param int meeting: the index of the meeting
+	 *
+	 * @return boolean: if the meeting could be encoded
+	********************************************************/
+	private boolean encode(Period period, int meeting){
+		Time start = period.getStartTime();
+		Time end = period.getEndTime();
+		boolean[] meets = period.getDays();
+
+		if(meets == null || meets.length != days || !isEncodable(start) || !isEncodable(end)){
+			return false;							//compare with the periods instead
+		}
+
+		starts[meeting] = minuteOf(start);
+		ends[meeting] = minuteOf(end);
+
+		for(Day day: Day.values()){
+			if(meets[day.value()]){
+				meetingDays[meeting] |= 1 << day.value();
+
+				if(starts[meeting] <= ends[meeting]){//occupy every slot of the meeting
+					fill(day.value(), starts[meeting], ends[meeting]);
+				}
+				else{								//reversed times only match at their ends
+					fill(day.value(), starts[meeting], starts[meeting]);
+					fill(day.value(), ends[meeting], ends[meeting]);
+				}
+			}
+		}
+		return true;
+	}
+
+
+	/********************************************************
+	 * @purpose Sets the slots covering the minutes on the day
+	 *
+	 * @param int day: the day value
+	 * @param int from: the first minute
+	 * @param int to: the last minute, inclusive
+	********************************************************/
+	private void fill(int day, int from, int to){
+		int last = day * slotsPerDay + to / slotLength;
+
+		for(int slot = day * slotsPerDay + from / slotLength; slot <= last; slot++){
+			bits[slot / Long.SIZE] |= 1L << (slot % Long.SIZE);
+		}
+	}
+
+
+	/********************************************************
+	 * @purpose Returns if the time can be converted without changing
+	 * 		its ordering
+	 *
+	 * @param Time time: the time to check
+	 *
+	 * @return boolean: if the time is within a single day
+	********************************************************/
+	protected static boolean isEncodable(Time time){
+		return time.getHour() >= 0 && time.getHour() <= 12 && time.getMinute() >= 0 && time.getMinute() < 60;
+	}
+
+
+	/********************************************************
+	 * @purpose Applies the four inclusive between checks of
+	 * 		Period.conflictsWith to minutes
+	 *
+	 * @return boolean: if the meetings overlap
+	********************************************************/
+	private static boolean overlaps(int start, int end, int oStart, int oEnd){
+		return isBetween(start, oStart, oEnd) || isBetween(end, oStart, oEnd) ||
+			isBetween(oStart, start, end) || isBetween(oEnd, start, end);
+	}
+
+
+	/********************************************************
+	 * @purpose Applies Time.isBetween to minutes
+	 *
+	 * @return boolean: if the minute is between start and end inclusive
+	********************************************************/
+	protected static boolean isBetween(int minute, int start, int end){
+		return minute == start || minute == end || (start < minute && minute < end);
+	}
+}